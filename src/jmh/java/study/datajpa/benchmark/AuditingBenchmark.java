@@ -0,0 +1,62 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 감사 필드가 있는 회원 대량 저장 비용.
+ * transactionScoped=true 는 트랜잭션당 시각/등록자를 한번 구하고, false 는 엔티티마다 구한다 (이전 방식).
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 UUID 생성 등 할당 차이를 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuditingBenchmark {
+
+    @Param({"true", "false"})
+    boolean transactionScoped;
+
+    @Param({"1000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("auditing" + transactionScoped,
+                "auditing.transaction-scoped=" + transactionScoped);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    //저장된 회원이 계속 쌓이지 않도록 반복마다 비운다
+    @TearDown(Level.Iteration)
+    public void clear() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long bulkInsert() {
+        return memberRepository.bulkInsert(IntStream.range(0, members)
+                .mapToObj(i -> new Member("member" + i, i % 100)));
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트. 인메모리 H2 를 쓰고 SQL 로그와 2차 캐시는 끈다.
+ */
+public final class BenchmarkContext {
+
+    public static final int MEMBERS_PER_TEAM = 100;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... properties) {
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn")
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * 팀당 MEMBERS_PER_TEAM 명씩 회원 memberCount 명을 저장한다.
+     * team.members 컬렉션에 추가하지 않도록 changeTeam 대신 setTeam 을 쓴다.
+     */
+    public static void seed(ConfigurableApplicationContext context, int memberCount) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, memberCount / MEMBERS_PER_TEAM); i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.saveAll(teams);
+
+        memberRepository.bulkInsert(IntStream.range(0, memberCount).mapToObj(i -> {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teams.get(i % teams.size()));
+            return member;
+        }));
+    }
+}
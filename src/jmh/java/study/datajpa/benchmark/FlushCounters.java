@@ -0,0 +1,37 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벤치마크 결과에 호출당 flush 시간(flushMillisPerOp)을 함께 출력한다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class FlushCounters {
+
+    public long flushNanos;
+    public long invocations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        flushNanos = 0;
+        invocations = 0;
+    }
+
+    public double flushMillisPerOp() {
+        return invocations == 0 ? 0 : flushNanos / 1_000_000.0 / invocations;
+    }
+
+    void flush(EntityManager em) {
+        long start = System.nanoTime();
+        em.flush();
+        flushNanos += System.nanoTime() - start;
+        invocations++;
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 나이가 같은 회원(members / 100 명)을 MemberDto 로 조회하는 방식 비교.
+ * - entityAndMap : 회원 + 팀 엔티티를 페치 조인으로 로딩한 뒤 DTO 로 변환
+ * - jdbcRowMapper : JDBC 컬럼 순서로 바로 DTO 생성 (findMemberDtoByAge)
+ * 행당 할당량은 gc 프로파일러의 gc.alloc.rate.norm 을 조회 행 수로 나눠서 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberDtoReadBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("dto" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        condition.setAgeGoe(42);
+        condition.setAgeLoe(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> entityAndMap() {
+        return readOnly.execute(status -> memberRepository.search(condition, Pageable.unpaged()).stream()
+                .map(member -> new MemberDto(member.getId(), member.getUsername(),
+                        member.getTeam() == null ? null : member.getTeam().getName()))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<MemberDto> jdbcRowMapper() {
+        return readOnly.execute(status -> memberRepository.findMemberDtoByAge(42));
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 회원 + 팀 조회 방식 비교 : 페치 조인 / 엔티티 그래프 / NamedEntityGraph / findAll 오버라이드 / DTO 직접 조회.
+ * 매 호출마다 새 트랜잭션(영속성 컨텍스트)에서 조회하고 팀 이름까지 읽는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberFetchStrategyBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("fetch" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fetchJoin(SqlCounters counters, Blackhole bh) {
+        consumeMembers(counters, bh, memberRepository::findMemberfetchJoin);
+    }
+
+    @Benchmark
+    public void entityGraph(SqlCounters counters, Blackhole bh) {
+        consumeMembers(counters, bh, memberRepository::findMemberEntityGraph);
+    }
+
+    @Benchmark
+    public void namedEntityGraph(SqlCounters counters, Blackhole bh) {
+        consumeMembers(counters, bh, memberRepository::findMemberNamedEntityGraph);
+    }
+
+    @Benchmark
+    public void findAllEntityGraph(SqlCounters counters, Blackhole bh) {
+        consumeMembers(counters, bh, memberRepository::findAll);
+    }
+
+    @Benchmark
+    public void dtoProjection(SqlCounters counters, Blackhole bh) {
+        counters.count(() -> readOnly.execute(status -> {
+            List<MemberDto> result = memberRepository.findMemberDto();
+            for (MemberDto dto : result) {
+                bh.consume(dto.getTeamName());
+            }
+            return result.size();
+        }));
+    }
+
+    private void consumeMembers(SqlCounters counters, Blackhole bh, Supplier<List<Member>> query) {
+        counters.count(() -> readOnly.execute(status -> {
+            List<Member> result = query.get();
+            for (Member member : result) {
+                bh.consume(member.getTeam() == null ? null : member.getTeam().getName());
+            }
+            return result.size();
+        }));
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동적 검색(MemberRepository.search) 조건 조합별 응답시간.
+ * 시작할 때 조건 조합마다 H2 실행 계획(explain)을 출력해서 Member/Team 인덱스를 타는지 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberSearchBenchmark {
+
+    @Param({"1000000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    Pageable page = PageRequest.of(0, 20, Sort.by("age"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("search" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        explain(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> usernamePrefixAndAge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("member12345");
+        condition.setAgeGoe(40);
+        return search(condition);
+    }
+
+    @Benchmark
+    public List<Member> teamAndAgeRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team42");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+        return search(condition);
+    }
+
+    @Benchmark
+    public List<Member> ageRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(31);
+        return search(condition);
+    }
+
+    private List<Member> search(MemberSearchCondition condition) {
+        return readOnly.execute(status -> memberRepository.search(condition, page));
+    }
+
+    //검색 쿼리와 같은 모양의 SQL 로 실행 계획을 출력한다
+    private static void explain(JdbcTemplate jdbcTemplate) {
+        String[] queries = {
+                "select * from member m left join team t on t.team_id = m.team_id" +
+                        " where m.username like 'member12345%' and m.age >= 40 order by m.age limit 20",
+                "select * from member m left join team t on t.team_id = m.team_id" +
+                        " where t.name = 'team42' and m.age between 10 and 20 order by m.age limit 20",
+                "select * from member m left join team t on t.team_id = m.team_id" +
+                        " where m.age between 30 and 31 order by m.age limit 20"
+        };
+        for (String query : queries) {
+            System.out.println("explain " + query + "\n" +
+                    jdbcTemplate.queryForObject("explain " + query, String.class));
+        }
+    }
+}
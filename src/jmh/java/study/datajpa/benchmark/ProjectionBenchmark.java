@@ -0,0 +1,71 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.projection.ProjectionMetadata;
+import study.datajpa.projection.UsernameOnly;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 조회 결과 행 -> UsernameOnly 변환 비용 비교 (DB 조회 제외). gc 프로파일러의 gc.alloc.rate.norm 으로 행당 할당량을 본다.
+ * - springProxy : 스프링 데이터가 인터페이스 projection 에 쓰는 방식 (행마다 Map + 프록시)
+ * - cachedImplementation : ProjectionMetadata 로 구현 클래스 생성자 호출
+ * - dto : UsernameOnlyDto 직접 생성 (기준선)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1000"})
+    int rows;
+
+    String[] usernames;
+    ProjectionFactory proxyFactory;
+    ProjectionMetadata<UsernameOnly> metadata;
+
+    @Setup
+    public void setUp() {
+        usernames = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            usernames[i] = "member" + i;
+        }
+        proxyFactory = new SpelAwareProxyProjectionFactory();
+        metadata = ProjectionMetadata.of(UsernameOnly.class);
+    }
+
+    @Benchmark
+    public void springProxy(Blackhole bh) {
+        for (String username : usernames) {
+            UsernameOnly projection = proxyFactory.createProjection(
+                    UsernameOnly.class, Collections.singletonMap("username", username));
+            bh.consume(projection.getUsername());
+        }
+    }
+
+    @Benchmark
+    public void cachedImplementation(Blackhole bh) {
+        for (String username : usernames) {
+            bh.consume(metadata.instantiate(username).getUsername());
+        }
+    }
+
+    @Benchmark
+    public void dto(Blackhole bh) {
+        for (String username : usernames) {
+            bh.consume(new UsernameOnlyDto(username).getUsername());
+        }
+    }
+}
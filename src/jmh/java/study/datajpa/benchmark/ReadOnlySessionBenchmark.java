@@ -0,0 +1,71 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쓰기 트랜잭션에서 회원 전체를 조회하고 flush 까지 하는 비용.
+ * - managed : 일반 조회, 엔티티마다 스냅샷을 만들고 flush 때 전부 변경 감지
+ * - readOnlySession : @ReadOnlySession 조회, 스냅샷/변경 감지 없음
+ * flush 시간은 FlushCounters 로 따로 잰다. 힙 사용량 차이는 gc 프로파일러의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlySessionBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    EntityManager em;
+    TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("readonly" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int managed(FlushCounters counters) {
+        return transaction.execute(status -> {
+            int size = memberRepository.findMemberCustom().size();
+            counters.flush(em);
+            return size;
+        });
+    }
+
+    @Benchmark
+    public int readOnlySession(FlushCounters counters) {
+        return transaction.execute(status -> {
+            int size = memberRepository.findAllReadOnly().size();
+            counters.flush(em);
+            return size;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 팀별 회원 수/평균 나이와 전체 나이 통계
+ * - inMemory : findAll 로 회원과 팀을 로딩해서 자바에서 집계 (이전 방식)
+ * - groupBy : MemberRepository 의 group by 쿼리
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("report" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object inMemory(SqlCounters counters) {
+        return counters.count(() -> readOnly.execute(status -> {
+            List<Member> all = memberRepository.findAll();
+            Map<String, IntSummaryStatistics> teamStats = all.stream()
+                    .filter(member -> member.getTeam() != null)
+                    .collect(Collectors.groupingBy(member -> member.getTeam().getName(),
+                            Collectors.summarizingInt(Member::getAge)));
+            IntSummaryStatistics ageStats = all.stream().mapToInt(Member::getAge).summaryStatistics();
+            return new Object[]{teamStats, ageStats};
+        }));
+    }
+
+    @Benchmark
+    public Object groupBy(SqlCounters counters) {
+        return counters.count(() -> readOnly.execute(status -> {
+            List<TeamStatsDto> teamStats = memberRepository.findTeamStats();
+            AgeStatsDto ageStats = memberRepository.findAgeStats();
+            return new Object[]{teamStats, ageStats};
+        }));
+    }
+}
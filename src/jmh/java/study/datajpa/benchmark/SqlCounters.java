@@ -0,0 +1,39 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.metrics.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크 결과에 호출당 SQL 수(sqlPerOp)를 함께 출력한다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SqlCounters {
+
+    public long statements;
+    public long invocations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+        invocations = 0;
+    }
+
+    public double sqlPerOp() {
+        return invocations == 0 ? 0 : (double) statements / invocations;
+    }
+
+    <T> T count(Supplier<T> work) {
+        long before = SqlStatementCounter.statements();
+        T result = work.get();
+        statements += SqlStatementCounter.statements() - before;
+        invocations++;
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package study.datajpa.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 동시 쓰기 8 ~ 64 스레드가 MemberService.addAge 로 회원 나이를 올릴 때의 처리량.
+ * - sameRow : 모든 스레드가 한 회원을 수정 (낙관적 락 충돌 -> 재시도)
+ * - differentRows : 스레드마다 다른 회원을 수정 (충돌 없음)
+ * 단계마다 처리량, p50/p99, 재시도 수, 재시도 후 실패 수를 출력하고 마지막에 갱신 유실이 없는지 확인한다.
+ *
+ * 설정(-D) : loadtest.seconds(단계별, 기본 10)
+ */
+public class ContentionRunner {
+
+    private static final int[] WRITERS = {8, 16, 32, 64};
+
+    public static void main(String[] args) throws Exception {
+        int seconds = Integer.getInteger("loadtest.seconds", 10);
+
+        try (ConfigurableApplicationContext context = LoadTestContext.start(WebApplicationType.NONE)) {
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+            MemberService memberService = context.getBean(MemberService.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            List<Long> memberIds = memberRepository.saveAll(IntStream.range(0, WRITERS[WRITERS.length - 1])
+                            .mapToObj(i -> new Member("writer" + i, 0))
+                            .collect(Collectors.toList()))
+                    .stream().map(Member::getId).collect(Collectors.toList());
+
+            System.out.printf("%-14s %8s %10s %9s %9s %9s %9s%n",
+                    "mode", "writers", "ops/s", "p50(ms)", "p99(ms)", "retries", "failures");
+            for (int writers : WRITERS) {
+                runStage("sameRow", writers, seconds, i -> memberIds.get(0), memberService, memberRepository, meterRegistry);
+                runStage("differentRows", writers, seconds, memberIds::get, memberService, memberRepository, meterRegistry);
+            }
+        }
+    }
+
+    private static void runStage(String mode, int writers, int seconds, IntFunction<Long> target,
+                                 MemberService memberService, MemberRepository memberRepository,
+                                 MeterRegistry meterRegistry) throws InterruptedException {
+        double retriesBefore = count(meterRegistry, "optimistic.retries");
+        double failuresBefore = count(meterRegistry, "optimistic.failures");
+        LatencyRecorder recorder = new LatencyRecorder();
+        List<Long> targets = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            targets.add(target.apply(i));
+        }
+        long ageBefore = targets.stream().distinct().mapToLong(id -> memberRepository.findById(id).get().getAge()).sum();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(writers);
+        for (Long memberId : targets) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        memberService.addAge(memberId, 1);
+                        recorder.record(System.nanoTime() - start);
+                    } catch (RuntimeException e) {
+                        recorder.recordError();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        long ageAfter = targets.stream().distinct().mapToLong(id -> memberRepository.findById(id).get().getAge()).sum();
+        System.out.printf("%-14s %8d %10.1f %9.2f %9.2f %9.0f %9.0f%n", mode, writers,
+                (double) recorder.count() / seconds, recorder.percentileMillis(0.5), recorder.percentileMillis(0.99),
+                count(meterRegistry, "optimistic.retries") - retriesBefore,
+                count(meterRegistry, "optimistic.failures") - failuresBefore);
+        //성공한 수정은 모두 반영되어야 한다 (갱신 유실 없음)
+        if (ageAfter - ageBefore != recorder.count()) {
+            System.out.printf("  lost updates : expected +%d, actual +%d%n", recorder.count(), ageAfter - ageBefore);
+        }
+    }
+
+    private static double count(MeterRegistry meterRegistry, String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 응답시간 분포를 로그 스케일 버킷(마이크로초)으로 모은다. 여러 스레드에서 동시에 기록한다.
+ */
+public class LatencyRecorder {
+
+    //1us ~ 약 1000초, 버킷마다 약 4.4% 간격
+    private static final int BUCKETS_PER_DOUBLING = 16;
+    private static final int BUCKETS = 30 * BUCKETS_PER_DOUBLING;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = (int) Math.min(BUCKETS - 1, Math.round(log2(micros) * BUCKETS_PER_DOUBLING));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    //percentile(0.99) -> p99 (밀리초)
+    public double percentileMillis(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.pow(2, (double) i / BUCKETS_PER_DOUBLING) / 1000.0;
+            }
+        }
+        return Math.pow(2, (double) BUCKETS / BUCKETS_PER_DOUBLING) / 1000.0;
+    }
+
+    private static double log2(long value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", errors=" + errors + ", percentiles(ms)=" + Arrays.toString(new double[]{
+                percentileMillis(0.5), percentileMillis(0.99)});
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 부하 테스트용 스프링 컨텍스트. 인메모리 H2 를 쓰고 SQL 로그와 2차 캐시는 끈다.
+ */
+public final class LoadTestContext {
+
+    public static final int MEMBERS_PER_TEAM = 100;
+
+    private LoadTestContext() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(webApplicationType)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn")
+                .properties(properties)
+                .run();
+    }
+
+    //팀당 MEMBERS_PER_TEAM 명씩 회원 memberCount 명을 저장하고 저장된 회원/팀 id 를 돌려준다
+    //id 는 시퀀스로 할당되므로 1 부터 연속이라고 가정하지 않는다
+    public static SeededMembers seedMembers(ConfigurableApplicationContext context, int memberCount) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, memberCount / MEMBERS_PER_TEAM); i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.saveAll(teams);
+
+        List<Member> members = IntStream.range(0, memberCount).mapToObj(i -> {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teams.get(i % teams.size()));
+            return member;
+        }).collect(Collectors.toList());
+        memberRepository.bulkInsert(members.stream());
+        long[] memberIds = members.stream().mapToLong(Member::getId).toArray();
+        return new SeededMembers(memberIds, teams.stream().mapToLong(Team::getId).toArray());
+    }
+
+    public static class SeededMembers {
+        final long[] memberIds;
+        final long[] teamIds;
+
+        SeededMembers(long[] memberIds, long[] teamIds) {
+            this.memberIds = memberIds;
+            this.teamIds = teamIds;
+        }
+    }
+
+    public static HikariPoolMXBean pool(ConfigurableApplicationContext context) {
+        try {
+            return context.getBean(DataSource.class).unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        } catch (SQLException e) {
+            throw new IllegalStateException("HikariDataSource 가 아닙니다.", e);
+        }
+    }
+}
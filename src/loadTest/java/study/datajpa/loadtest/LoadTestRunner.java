@@ -0,0 +1,182 @@
+package study.datajpa.loadtest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 애플리케이션을 임의 포트로 띄우고 같은 프로세스의 HTTP 클라이언트로 조회/등록 API 에 동시 부하를 준다.
+ * 끝나면 API 별 처리량, p50/p95/p99 응답시간, 오류 수, 요청당 SQL 수(http.server.requests.sql)를 출력한다.
+ *
+ * 설정(-D) : loadtest.threads(기본 32), loadtest.seconds(기본 30), loadtest.warmupSeconds(기본 10)
+ * 데이터 양은 LoadTestSeeder 참고. 나머지 -D 는 스프링 설정으로 넘어간다.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("loadtest.threads", 32);
+        int seconds = Integer.getInteger("loadtest.seconds", 30);
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+
+        try (ConfigurableApplicationContext context = LoadTestContext.start(WebApplicationType.SERVLET, "server.port=0")) {
+            LoadTestSeeder.Volumes volumes = LoadTestSeeder.seed(context);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<Scenario> scenarios = scenarios(baseUrl, volumes);
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(threads);
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            try {
+                //워밍업 결과는 버리고, 메트릭은 측정 전후 차이만 본다 (registry 를 비우면 등록된 미터가 끊긴다)
+                run(client, scenarios, threads, warmupSeconds);
+                MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+                scenarios = scenarios(baseUrl, volumes);
+                scenarios.forEach(scenario -> scenario.sqlBefore = sqlSnapshot(meterRegistry, scenario));
+                run(client, scenarios, threads, seconds);
+                report(scenarios, seconds, meterRegistry);
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    //weight 비율로 섞어서 호출한다
+    private static List<Scenario> scenarios(String baseUrl, LoadTestSeeder.Volumes volumes) {
+        AtomicLong sequence = new AtomicLong();
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("GET /members/{id}", "/members/{id}", 40, random ->
+                get(baseUrl + "/members/" + volumes.randomMemberId(random))));
+        scenarios.add(new Scenario("GET /members?age", "/members", 25, random ->
+                get(baseUrl + "/members?age=" + random.nextInt(100) + "&page=" + random.nextInt(5) + "&size=20")));
+        scenarios.add(new Scenario("GET /reports/teams", "/reports/teams", 5, random ->
+                get(baseUrl + "/reports/teams")));
+        scenarios.add(new Scenario("GET /teams/members", "/teams/members", 1, random ->
+                get(baseUrl + "/teams/members")));
+        scenarios.add(new Scenario("POST /members", "/members", 20, random ->
+                post(baseUrl + "/members", "{\"username\":\"load" + sequence.incrementAndGet() + "\",\"age\":"
+                        + random.nextInt(100) + ",\"teamId\":" + volumes.randomTeamId(random) + "}")));
+        scenarios.add(new Scenario("POST /items/sync", "/items/sync", 9, random ->
+                post(baseUrl + "/items/sync", "[\"item" + random.nextInt(volumes.items * 2) + "\",\"item"
+                        + random.nextInt(volumes.items * 2) + "\"]")));
+        return scenarios;
+    }
+
+    private static void run(HttpClient client, List<Scenario> scenarios, int threads, int seconds)
+            throws InterruptedException {
+        int totalWeight = scenarios.stream().mapToInt(scenario -> scenario.weight).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Scenario scenario = pick(scenarios, random.nextInt(totalWeight));
+                    HttpRequest request = scenario.request.apply(random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            scenario.recorder.recordError();
+                        } else {
+                            scenario.recorder.record(System.nanoTime() - start);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        scenario.recorder.recordError();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int point) {
+        for (Scenario scenario : scenarios) {
+            point -= scenario.weight;
+            if (point < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private static void report(List<Scenario> scenarios, int seconds, MeterRegistry meterRegistry) {
+        System.out.printf("%-22s %10s %9s %9s %9s %8s %9s%n",
+                "api", "ops/s", "p50(ms)", "p95(ms)", "p99(ms)", "errors", "sql/req");
+        for (Scenario scenario : scenarios) {
+            LatencyRecorder recorder = scenario.recorder;
+            System.out.printf("%-22s %10.1f %9.2f %9.2f %9.2f %8d %9.2f%n", scenario.name,
+                    (double) recorder.count() / seconds, recorder.percentileMillis(0.5),
+                    recorder.percentileMillis(0.95), recorder.percentileMillis(0.99), recorder.errors(),
+                    sqlPerRequest(meterRegistry, scenario));
+        }
+    }
+
+    //측정 구간의 요청당 SQL 수 = (SQL 합계 차이) / (요청 수 차이)
+    private static double sqlPerRequest(MeterRegistry meterRegistry, Scenario scenario) {
+        double[] after = sqlSnapshot(meterRegistry, scenario);
+        double requests = after[0] - scenario.sqlBefore[0];
+        return requests == 0 ? 0 : (after[1] - scenario.sqlBefore[1]) / requests;
+    }
+
+    //{요청 수, SQL 합계}
+    private static double[] sqlSnapshot(MeterRegistry meterRegistry, Scenario scenario) {
+        String method = scenario.name.substring(0, scenario.name.indexOf(' '));
+        double[] snapshot = {0, 0};
+        //status 태그별로 미터가 나뉘므로 합친다
+        for (DistributionSummary summary : meterRegistry.find("http.server.requests.sql")
+                .tag("method", method)
+                .tag("uri", scenario.uri)
+                .summaries()) {
+            snapshot[0] += summary.count();
+            snapshot[1] += summary.totalAmount();
+        }
+        return snapshot;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static class Scenario {
+        private final String name;
+        private final String uri;
+        private final int weight;
+        private final Function<ThreadLocalRandom, HttpRequest> request;
+        private final LatencyRecorder recorder = new LatencyRecorder();
+        private double[] sqlBefore = {0, 0};
+
+        private Scenario(String name, String uri, int weight, Function<ThreadLocalRandom, HttpRequest> request) {
+            this.name = name;
+            this.uri = uri;
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+}
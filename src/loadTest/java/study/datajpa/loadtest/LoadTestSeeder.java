@@ -0,0 +1,48 @@
+package study.datajpa.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 부하 테스트 데이터. 양은 -D 로 정한다.
+ * loadtest.members(기본 100000, 팀당 100명), loadtest.items(기본 100000)
+ */
+public final class LoadTestSeeder {
+
+    private LoadTestSeeder() {
+    }
+
+    public static Volumes seed(ConfigurableApplicationContext context) {
+        int members = Integer.getInteger("loadtest.members", 100_000);
+        int items = Integer.getInteger("loadtest.items", 100_000);
+        LoadTestContext.SeededMembers seeded = LoadTestContext.seedMembers(context, members);
+        context.getBean(ItemRepository.class).upsertAll(IntStream.range(0, items)
+                .mapToObj(i -> new Item("item" + i))
+                .collect(Collectors.toList()));
+        return new Volumes(seeded, items);
+    }
+
+    //부하 요청은 실제로 저장된 id 중에서 고른다
+    public static class Volumes {
+        final LoadTestContext.SeededMembers seeded;
+        final int items;
+
+        Volumes(LoadTestContext.SeededMembers seeded, int items) {
+            this.seeded = seeded;
+            this.items = items;
+        }
+
+        long randomMemberId(ThreadLocalRandom random) {
+            return seeded.memberIds[random.nextInt(seeded.memberIds.length)];
+        }
+
+        long randomTeamId(ThreadLocalRandom random) {
+            return seeded.teamIds[random.nextInt(seeded.teamIds.length)];
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.datasource.DataSourcePoolProperties;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 동시 실행 스레드 수를 늘려가며 MemberRepository 조회를 반복 실행하고
+ * 단계마다 처리량, p50/p99 응답시간, 커넥션을 기다린 최대 스레드 수를 출력한다.
+ * 처리량이 더 늘지 않고 응답시간과 대기 스레드만 늘기 시작하는 단계가 포화 지점이다.
+ *
+ * 설정(-D) : loadtest.members(기본 100000), loadtest.seconds(단계별, 기본 10), loadtest.maxThreads(기본 128)
+ * 나머지 -D 는 스프링 설정으로 넘어간다. 예) -Ddatasource.pool.size=8
+ */
+public class PoolSaturationRunner {
+
+    public static void main(String[] args) throws Exception {
+        int members = Integer.getInteger("loadtest.members", 100_000);
+        int seconds = Integer.getInteger("loadtest.seconds", 10);
+        int maxThreads = Integer.getInteger("loadtest.maxThreads", 128);
+
+        try (ConfigurableApplicationContext context = LoadTestContext.start(WebApplicationType.NONE)) {
+            LoadTestContext.seedMembers(context, members);
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+            TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            readOnly.setReadOnly(true);
+            HikariPoolMXBean pool = LoadTestContext.pool(context);
+
+            System.out.printf("pool size=%d, members=%d%n",
+                    context.getBean(DataSourcePoolProperties.class).poolSize(), members);
+            System.out.printf("%8s %12s %10s %10s %14s %8s%n", "threads", "ops/s", "p50(ms)", "p99(ms)", "maxAwaiting", "errors");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                runStage(threads, seconds, members, memberRepository, readOnly, pool);
+            }
+        }
+    }
+
+    private static void runStage(int threads, int seconds, int members, MemberRepository memberRepository,
+                                 TransactionTemplate readOnly, HikariPoolMXBean pool) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger maxAwaiting = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        readOnly.execute(status -> query(memberRepository, members));
+                        recorder.record(System.nanoTime() - start);
+                    } catch (RuntimeException e) {
+                        recorder.recordError();
+                    }
+                    maxAwaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        System.out.printf("%8d %12.1f %10.2f %10.2f %14d %8d%n", threads, (double) recorder.count() / seconds,
+                recorder.percentileMillis(0.5), recorder.percentileMillis(0.99), maxAwaiting.get(), recorder.errors());
+    }
+
+    //단건 조회 / 페이징 / 집계를 섞어서 실행한다
+    private static Object query(MemberRepository memberRepository, int members) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (random.nextInt(3)) {
+            case 0:
+                return memberRepository.findOptionalByUsername("member" + random.nextInt(members));
+            case 1:
+                return memberRepository.findByAge(random.nextInt(100), PageRequest.of(random.nextInt(10), 20));
+            default:
+                return memberRepository.findAgeStats();
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package study.datajpa;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.auditing.AuditingContext;
 
+import java.time.Clock;
 import java.util.Optional;
 import java.util.UUID;
 
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -15,8 +21,26 @@ public class DataJpaApplication {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
+	//감사 시각에 쓰는 시계, 더 싼 시계가 필요하면 교체한다
 	@Bean
-	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+	public Clock auditingClock() {
+		return Clock.systemDefaultZone();
+	}
+
+	//등록자/시각은 트랜잭션마다 한번만 구한다 (auditing.transaction-scoped=false 이면 매번)
+	@Bean
+	public AuditingContext auditingContext(Clock auditingClock,
+										   @Value("${auditing.transaction-scoped:true}") boolean transactionScoped) {
+		return new AuditingContext(auditingClock, () -> UUID.randomUUID().toString(), transactionScoped);
+	}
+
+	@Bean
+	public AuditorAware<String> auditorProvider(AuditingContext auditingContext) {
+		return () -> Optional.of(auditingContext.currentAuditor());
+	}
+
+	@Bean
+	public DateTimeProvider auditingDateTimeProvider(AuditingContext auditingContext) {
+		return () -> Optional.of(auditingContext.currentTime());
 	}
 }
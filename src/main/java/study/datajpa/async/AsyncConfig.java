@@ -0,0 +1,17 @@
+package study.datajpa.async;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import study.datajpa.datasource.DataSourcePoolProperties;
+
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    //@Async("repositoryExecutor") 리포지토리 메서드가 실행되는 곳, 동시 실행 수는 커넥션 풀 크기로 제한한다
+    @Bean(destroyMethod = "close")
+    public RepositoryExecutor repositoryExecutor(DataSourcePoolProperties poolProperties) {
+        return new RepositoryExecutor(poolProperties.poolSize());
+    }
+}
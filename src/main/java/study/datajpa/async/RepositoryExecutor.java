@@ -0,0 +1,79 @@
+package study.datajpa.async;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 리포지토리 비동기 조회용 실행기.
+ * JDK 가 지원하면(21+) 가상 스레드를 쓰고, 아니면 maxConcurrency 크기의 고정 스레드 풀을 쓴다.
+ * 동시에 실행되는 조회는 커넥션 풀 크기(maxConcurrency)로 제한해서 커넥션 대기로 스레드가 쌓이지 않게 한다.
+ */
+@Slf4j
+public class RepositoryExecutor implements Executor, AutoCloseable {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final boolean virtualThreads;
+    //이 실행기에서 실행 중인 작업인지 (작업 안에서 다시 작업을 제출하고 기다리면 permit 이 모자라 멈출 수 있다)
+    private final ThreadLocal<Boolean> running = new ThreadLocal<>();
+
+    public RepositoryExecutor(int maxConcurrency) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.delegate = virtualThreads ? virtual : newPlatformThreadExecutor(maxConcurrency);
+        this.permits = new Semaphore(maxConcurrency);
+        log.info("repository executor : virtualThreads={}, maxConcurrency={}", virtualThreads, maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            running.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                running.remove();
+                permits.release();
+            }
+        });
+    }
+
+    public boolean isRunningTask() {
+        return running.get() != null;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+    }
+
+    //빌드 대상은 Java 11 이므로 리플렉션으로 찾는다
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "repository-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
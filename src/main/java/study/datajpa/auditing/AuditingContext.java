@@ -0,0 +1,75 @@
+package study.datajpa.auditing;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * 감사(auditing) 시각과 등록자를 트랜잭션마다 한번만 구해서 재사용한다.
+ * 대량 저장 시 엔티티마다 시계/등록자(UUID)를 조회하지 않는다.
+ * 트랜잭션 밖에서는 호출할 때마다 새로 구한다.
+ * 스프링 빈으로 등록하고 AuditingHandler(DateTimeProvider, AuditorAware)와 JPA 엔티티 리스너(JpaBaseEntityListener)에 주입한다.
+ */
+public class AuditingContext {
+
+    private final Clock clock;
+    private final Supplier<String> auditorSource;
+    private final boolean transactionScoped;
+
+    /**
+     * @param transactionScoped false 이면 매번 새로 구한다 (벤치마크 비교용)
+     */
+    public AuditingContext(Clock clock, Supplier<String> auditorSource, boolean transactionScoped) {
+        this.clock = clock;
+        this.auditorSource = auditorSource;
+        this.transactionScoped = transactionScoped;
+    }
+
+    public LocalDateTime currentTime() {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? LocalDateTime.now(clock) : snapshot.time;
+    }
+
+    public String currentAuditor() {
+        Snapshot snapshot = snapshot();
+        return snapshot == null ? auditorSource.get() : snapshot.auditor();
+    }
+
+    private Snapshot snapshot() {
+        if (!transactionScoped || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Snapshot snapshot = (Snapshot) TransactionSynchronizationManager.getResource(this);
+        if (snapshot == null) {
+            snapshot = new Snapshot(LocalDateTime.now(clock));
+            TransactionSynchronizationManager.bindResource(this, snapshot);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AuditingContext.this);
+                }
+            });
+        }
+        return snapshot;
+    }
+
+    private class Snapshot {
+        private final LocalDateTime time;
+        private String auditor;
+
+        private Snapshot(LocalDateTime time) {
+            this.time = time;
+        }
+
+        //등록자는 실제로 필요할 때 한번만 구한다 (트랜잭션 스레드에서만 접근)
+        private String auditor() {
+            if (auditor == null) {
+                auditor = auditorSource.get();
+            }
+            return auditor;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemController {
+
+    private final ItemRepository itemRepository;
+
+    //상품 id 목록을 동기화한다. 새로 저장한 건수를 반환
+    @PostMapping("/items/sync")
+    public long sync(@RequestBody List<String> ids) {
+        return itemRepository.upsertAll(ids.stream().map(Item::new).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberForm;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+
+    @GetMapping("/members/{id}")
+    public MemberDto member(@PathVariable Long id) {
+        return memberRepository.findMemberDtoById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    //트랜잭션을 열지 않으므로 count 쿼리가 다른 커넥션에서 동시에 실행된다 (findPageByAge)
+    @GetMapping("/members")
+    public Page<MemberDto> members(@RequestParam int age, Pageable pageable) {
+        return memberRepository.findPageByAge(age, pageable).map(this::toDto);
+    }
+
+    //리포지토리 호출마다 트랜잭션을 연다 (샤딩을 켜면 호출마다 shard 가 정해진다)
+    //준영속 팀의 members 컬렉션은 건드리지 않고 연관관계 주인(member.team)만 설정한다
+    @PostMapping("/members")
+    public Long create(@RequestBody MemberForm form) {
+        Member member = new Member(form.getUsername(), form.getAge());
+        if (form.getTeamId() != null) {
+            member.setTeam(teamRepository.findById(form.getTeamId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "team not found")));
+        }
+        return memberRepository.save(member).getId();
+    }
+
+    //회원 전체를 CSV(RFC 4180) 로 내려준다. 스트림을 다 쓸 때까지 트랜잭션(커넥션)을 유지해야 한다
+    //트랜잭션은 forEachMemberDto 가 연다 (샤딩을 켜면 shard 마다)
+    @GetMapping("/members/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter writer = response.getWriter();
+        writer.print("id,username,teamName\r\n");
+        memberRepository.forEachMemberDto(dto -> writer.print(
+                dto.getId() + "," + csvField(dto.getUsername()) + "," + csvField(dto.getTeamName()) + "\r\n"));
+        writer.flush();
+    }
+
+    //쉼표, 큰따옴표, 줄바꿈이 있으면 큰따옴표로 감싸고 안의 큰따옴표는 두번 쓴다. null 은 빈 값
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\r') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    //샤딩을 켜면 findPageByAge 는 모든 shard 에서 조회한 엔티티이므로 팀 이름은 조회할 때 함께 가져와야 한다
+    private MemberDto toDto(Member member) {
+        return new MemberDto(member.getId(), member.getUsername(),
+                member.getTeam() == null ? null : member.getTeam().getName());
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.report.MemberReportService;
+
+import java.util.List;
+
+//cached=false 이면 캐시를 거치지 않고 바로 집계한다
+@RestController
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final MemberReportService memberReportService;
+
+    @GetMapping("/reports/teams")
+    public List<TeamStatsDto> teamStats(@RequestParam(defaultValue = "true") boolean cached) {
+        return memberReportService.teamStats(cached);
+    }
+
+    @GetMapping("/reports/ages")
+    public List<AgeCountDto> ageHistogram(@RequestParam(defaultValue = "true") boolean cached) {
+        return memberReportService.ageHistogram(cached);
+    }
+
+    @GetMapping("/reports/age-stats")
+    public AgeStatsDto ageStats(@RequestParam(defaultValue = "true") boolean cached) {
+        return memberReportService.ageStats(cached);
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamMembersDto;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    @GetMapping("/teams/members")
+    public List<TeamMembersDto> teamMembers() {
+        return teamRepository.findTeamMembers();
+    }
+
+    @PostMapping("/teams")
+    public Long create(@RequestParam String name) {
+        return teamRepository.save(new Team(name)).getId();
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DataSourcePoolProperties.class)
+public class DataSourcePoolConfig {
+
+    //BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록하고 설정은 늦게 가져온다
+    @Bean
+    public static PoolSizingPostProcessor poolSizingPostProcessor(ObjectProvider<DataSourcePoolProperties> properties) {
+        return new PoolSizingPostProcessor(properties);
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 커넥션 풀 프로파일. 풀 크기는 코어 수와 쿼리당 대기(I/O) 비율로 계산한다.
+ * size = cores * (1 + waitComputeRatio) 를 minimumSize ~ maximumSize 로 자른다. size 를 지정하면 그 값을 쓴다.
+ * spring.datasource.hikari 의 같은 설정보다 우선한다. (PoolSizingPostProcessor)
+ */
+@Getter
+@Setter
+@ConfigurationProperties("datasource.pool")
+public class DataSourcePoolProperties {
+
+    //고정 풀 크기, 없으면 계산한다
+    private Integer size;
+
+    //없으면 Runtime.availableProcessors()
+    private Integer cores;
+
+    //쿼리 하나에서 DB/네트워크 대기 시간 ÷ CPU 사용 시간
+    private double waitComputeRatio = 1.0;
+
+    private int minimumSize = 4;
+
+    private int maximumSize = 50;
+
+    //커넥션을 이 시간 안에 못 얻으면 예외 (hikari 기본 30초는 p99 를 가린다)
+    private Duration connectionTimeout = Duration.ofSeconds(3);
+
+    public int poolSize() {
+        if (size != null) {
+            return size;
+        }
+        int availableCores = cores != null ? cores : Runtime.getRuntime().availableProcessors();
+        int computed = (int) Math.ceil(availableCores * (1 + waitComputeRatio));
+        return Math.max(minimumSize, Math.min(maximumSize, computed));
+    }
+
+    //고정 크기 풀 (minimumIdle = maximumPoolSize, hikari 권장)
+    public void applyTo(HikariDataSource dataSource) {
+        int poolSize = poolSize();
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(poolSize);
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/pool : 커넥션 풀별 사용량, 대기 스레드, 커넥션 획득 대기시간, 타임아웃 수.
+ * hikari 가 micrometer 에 기록하는 hikaricp.connections.* 를 풀 이름별로 모아서 보여준다.
+ */
+@Component
+@Endpoint(id = "pool")
+@RequiredArgsConstructor
+public class PoolEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> pools() {
+        Map<String, Map<String, Object>> pools = new LinkedHashMap<>();
+        for (Gauge max : meterRegistry.find("hikaricp.connections.max").gauges()) {
+            String pool = max.getId().getTag("pool");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("max", max.value());
+            stats.put("active", gauge("hikaricp.connections.active", pool));
+            stats.put("idle", gauge("hikaricp.connections.idle", pool));
+            stats.put("pending", gauge("hikaricp.connections.pending", pool));
+            stats.put("timeouts", counter("hikaricp.connections.timeout", pool));
+            stats.put("acquire", timer("hikaricp.connections.acquire", pool));
+            stats.put("usage", timer("hikaricp.connections.usage", pool));
+            pools.put(pool, stats);
+        }
+        return pools;
+    }
+
+    private double gauge(String name, String pool) {
+        Gauge gauge = meterRegistry.find(name).tag("pool", pool).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private double counter(String name, String pool) {
+        Counter counter = meterRegistry.find(name).tag("pool", pool).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    //획득/사용 시간(ms) : 건수, 평균, 최대
+    private Map<String, Object> timer(String name, String pool) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Timer timer = meterRegistry.find(name).tag("pool", pool).timer();
+        if (timer != null) {
+            result.put("count", timer.count());
+            result.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+            result.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * 스프링 부트가 만든 HikariDataSource 빈에 DataSourcePoolProperties 를 적용한다. (풀이 시작되기 전)
+ * 복제 DB 풀(ReplicaPools)은 빈이 아니므로 ReplicaDataSourceConfig 에서 직접 적용한다.
+ */
+@Slf4j
+public class PoolSizingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<DataSourcePoolProperties> properties;
+
+    public PoolSizingPostProcessor(ObjectProvider<DataSourcePoolProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            DataSourcePoolProperties poolProperties = properties.getObject();
+            poolProperties.applyTo((HikariDataSource) bean);
+            log.info("connection pool {} : size={}", beanName, poolProperties.poolSize());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,69 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.replica.enabled=true 이면 primary + 복제 DB 라우팅 DataSource 를 등록한다.
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true), 스프링 데이터 조회 메서드)이 복제 DB 로 간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(ReplicaPools replicaPools) {
+        return new LazyConnectionDataSourceProxy(replicaPools.getRouting());
+    }
+
+    //커넥션 풀들은 DataSource 빈으로 등록하지 않고(주입 대상이 여러개가 된다) 종료 시 함께 닫는다
+    @Bean(destroyMethod = "close")
+    public ReplicaPools replicaPools(DataSourceProperties dataSourceProperties, ReplicaDataSourceProperties replicaProperties,
+                                     DataSourcePoolProperties poolProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        if (replicaProperties.getUrls() == null || replicaProperties.getUrls().isEmpty()) {
+            throw new IllegalStateException("datasource.replica.enabled=true 이면 datasource.replica.urls 에 복제 DB 를 하나 이상 지정해야 합니다.");
+        }
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        configurePool(primary, poolProperties, meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaProperties.getUrls()) {
+            HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            configurePool(replica, poolProperties, meterRegistry);
+            replicas.add(replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getSelection());
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(
+                routing, replicas, replicaProperties.getLagQuery(), replicaProperties.getMaxLag());
+        monitor.start(replicaProperties.getHealthCheckInterval());
+        return new ReplicaPools(primary, replicas, routing, monitor);
+    }
+
+    //빈이 아닌 풀은 PoolSizingPostProcessor 와 hikari 메트릭 자동 설정이 적용되지 않으므로 직접 설정한다
+    private void configurePool(HikariDataSource pool, DataSourcePoolProperties poolProperties,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        poolProperties.applyTo(pool);
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+    }
+}
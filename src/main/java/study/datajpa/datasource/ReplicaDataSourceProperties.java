@@ -0,0 +1,30 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled = false;
+
+    //복제 DB JDBC URL 목록. 계정은 spring.datasource 와 같다
+    private List<String> urls = new ArrayList<>();
+
+    private ReplicaSelection selection = ReplicaSelection.ROUND_ROBIN;
+
+    //복제 지연(초)을 반환하는 쿼리. 없으면 커넥션 유효성만 확인한다
+    private String lagQuery;
+
+    //지연이 이보다 크면 해당 복제 DB 는 빼고 나머지(없으면 primary)로 보낸다
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,72 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주기적으로 복제 DB 의 상태와 복제 지연을 확인해서 라우팅 대상에서 빼거나 다시 넣는다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final List<? extends DataSource> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, List<? extends DataSource> replicas,
+                             String lagQuery, Duration maxLag) {
+        this.routingDataSource = routingDataSource;
+        this.replicas = replicas;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::checkAll, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkAll() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean healthy = isHealthy(replicas.get(i));
+            if (!healthy) {
+                log.warn("replica-{} is unavailable or lagging, reads fall back to other replicas/primary", i);
+            }
+            routingDataSource.markHealthy(i, healthy);
+        }
+    }
+
+    private boolean isHealthy(DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery == null) {
+                return connection.isValid(1);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                return resultSet.next() && resultSet.getLong(1) <= maxLag.getSeconds();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class ReplicaPools implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final ReplicaRoutingDataSource routing;
+    private final ReplicaLagMonitor monitor;
+
+    @Override
+    public void close() {
+        monitor.close();
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
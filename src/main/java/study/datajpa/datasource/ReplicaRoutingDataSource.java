@@ -0,0 +1,93 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 복제 DB 로, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 후에 readOnly 여부가 정해지므로 LazyConnectionDataSourceProxy 로 감싸서 사용해야 한다.
+ * 복제 DB 가 없거나 정상인 복제 DB 가 없으면 primary 로 보낸다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final ReplicaSelection selection;
+    private final Set<Integer> unhealthy = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReplicaSelection selection) {
+        this.replicas = replicas;
+        this.selection = selection;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public void markHealthy(int replica, boolean healthy) {
+        if (healthy) {
+            unhealthy.remove(replica);
+        } else {
+            unhealthy.add(replica);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        Integer replica = selection == ReplicaSelection.LEAST_LOADED ? leastLoaded() : roundRobin();
+        return replica == null ? PRIMARY : replica;
+    }
+
+    private Integer roundRobin() {
+        int size = replicas.size();
+        int start = Math.floorMod(sequence.getAndIncrement(), size);
+        for (int n = 0; n < size; n++) {
+            int candidate = (start + n) % size;
+            if (!unhealthy.contains(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private Integer leastLoaded() {
+        Integer selected = null;
+        int selectedActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            if (unhealthy.contains(i)) {
+                continue;
+            }
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < selectedActive) {
+                selected = i;
+                selectedActive = active;
+            }
+        }
+        return selected;
+    }
+}
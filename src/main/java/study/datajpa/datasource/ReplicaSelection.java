@@ -0,0 +1,8 @@
+package study.datajpa.datasource;
+
+public enum ReplicaSelection {
+    //복제 DB 를 돌아가면서 사용
+    ROUND_ROBIN,
+    //사용중인 커넥션이 가장 적은 복제 DB 사용
+    LEAST_LOADED
+}
@@ -0,0 +1,14 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+@Data
+public class AgeCountDto {
+    private int age;
+    private long count;
+
+    public AgeCountDto(int age, long count) {
+        this.age = age;
+        this.count = count;
+    }
+}
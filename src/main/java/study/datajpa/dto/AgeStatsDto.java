@@ -0,0 +1,19 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+//회원이 없으면 averageAge, minAge, maxAge 는 null
+@Data
+public class AgeStatsDto {
+    private long memberCount;
+    private Double averageAge;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public AgeStatsDto(long memberCount, Double averageAge, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.averageAge = averageAge;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
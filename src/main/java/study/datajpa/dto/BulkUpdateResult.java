@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString
+public class BulkUpdateResult {
+    private final List<Long> affectedIds;
+    private final int updatedCount;
+
+    public BulkUpdateResult(List<Long> affectedIds, int updatedCount) {
+        this.affectedIds = affectedIds;
+        this.updatedCount = updatedCount;
+    }
+}
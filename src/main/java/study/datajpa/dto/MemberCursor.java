@@ -0,0 +1,57 @@
+package study.datajpa.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * (username desc, id asc) 정렬 기준의 keyset 커서.
+ * 클라이언트에는 encode() 로 만든 불투명 토큰만 내려준다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    //토큰 형식 : base64url("id:username"), username 이 null 이면 base64url("id")
+    public String encode() {
+        String raw = username == null ? String.valueOf(id) : id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다. token=" + token, e);
+        }
+        int separator = raw.indexOf(':');
+        try {
+            if (separator < 0) {
+                return new MemberCursor(null, Long.valueOf(raw));
+            }
+            return new MemberCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다. token=" + token, e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+//회원 등록 요청, teamId 가 없으면 팀 없이 등록한다
+@Data
+public class MemberForm {
+    private String username;
+    private int age;
+    private Long teamId;
+}
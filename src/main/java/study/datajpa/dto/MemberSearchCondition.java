@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원 검색 조건. null 인 조건은 무시한다.
+ */
+@Data
+public class MemberSearchCondition {
+    private String usernamePrefix;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,25 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+public class TeamMembersDto {
+    private Long teamId;
+    private String name;
+    private int memberCount;
+    private List<String> usernames;
+
+    public TeamMembersDto(Team team) {
+        this.teamId = team.getId();
+        this.name = team.getName();
+        this.usernames = team.getMembers().stream()
+                .map(Member::getUsername)
+                .collect(Collectors.toList());
+        this.memberCount = usernames.size();
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private Double averageAge;
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, Double averageAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.averageAge = averageAge;
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+
+/**
+ * keyset 페이징 결과. count 쿼리를 실행하지 않으므로 전체 개수는 없고 다음 페이지 여부만 안다.
+ */
+@Getter
+public class Window<T> {
+    private final List<T> content;
+    private final MemberCursor nextCursor;
+
+    public Window(List<T> content, MemberCursor nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * limit + 1 건을 조회한 결과로 Window 를 만든다. 초과분이 있으면 마지막 회원이 다음 커서가 된다.
+     */
+    public static Window<Member> ofMembers(List<Member> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new Window<>(rows, null);
+        }
+        List<Member> content = rows.subList(0, limit);
+        return new Window<>(content, MemberCursor.of(content.get(limit - 1)));
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public String getNextToken() {
+        return nextCursor == null ? null : nextCursor.encode();
+    }
+}
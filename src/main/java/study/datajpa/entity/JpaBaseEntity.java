@@ -3,11 +3,12 @@ package study.datajpa.entity;
 import lombok.Getter;
 
 import javax.persistence.Column;
+import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.PrePersist;
-import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
 //mappedSuperclass를 적용해야 엔티티 상속관계를 구현할 수 있다.
+//등록/수정 시각은 JpaBaseEntityListener 가 채운다
+@EntityListeners(JpaBaseEntityListener.class)
 @MappedSuperclass
 @Getter
 public class JpaBaseEntity {
@@ -15,16 +16,13 @@ public class JpaBaseEntity {
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
 
-    @PrePersist
-    public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+    void markCreated(LocalDateTime now) {
         createdDate = now;
         updatedDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate() {
-        updatedDate = LocalDateTime.now();
+    void markUpdated(LocalDateTime now) {
+        updatedDate = now;
     }
 
 }
@@ -0,0 +1,29 @@
+package study.datajpa.entity;
+
+import study.datajpa.auditing.AuditingContext;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * JpaBaseEntity 의 등록/수정 시각을 채운다.
+ * 하이버네이트가 스프링 빈 컨테이너(SpringBeanContainer)로 생성하므로 AuditingContext 를 생성자로 주입받는다.
+ */
+public class JpaBaseEntityListener {
+
+    private final AuditingContext auditingContext;
+
+    public JpaBaseEntityListener(AuditingContext auditingContext) {
+        this.auditingContext = auditingContext;
+    }
+
+    @PrePersist
+    public void prePersist(JpaBaseEntity entity) {
+        entity.markCreated(auditingContext.currentTime());
+    }
+
+    @PreUpdate
+    public void preUpdate(JpaBaseEntity entity) {
+        entity.markUpdated(auditingContext.currentTime());
+    }
+}
@@ -1,11 +1,24 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @NamedEntityGraph(name="Member.all" ,attributeNodes = @NamedAttributeNode("team"))
 @Entity
+//keyset 페이징 (age = ? order by username desc, member_id) 용 인덱스
+//검색(MemberRepositoryImpl.search) 조건 조합별 인덱스 : username 접두어 + 나이, 팀 + 나이, 등록일 범위
+@Table(indexes = {
+        @Index(name = "idx_member_age_username", columnList = "age, username desc, member_id"),
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_created", columnList = "created")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -15,13 +28,22 @@ import javax.persistence.*;
         query = "select m from Member m where m.username =: username"
 )
 public class Member extends BaseEntity{
+    //increment_size 만큼 시퀀스를 한번에 할당받는다 (pooled optimizer)
+    //샤딩을 켜면 id 하위 비트에 shard 번호가 들어간다 (ShardAwareSequenceGenerator)
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.datajpa.sharding.ShardAwareSequenceGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "member_seq"), @Parameter(name = "increment_size", value = "50")})
     @Column(name="member_id")
     private Long id;
     private String username;
     private int age;
 
+    //낙관적 락 : 동시에 수정하면 나중에 flush 하는 쪽이 OptimisticLockException (재시도는 @OptimisticRetry)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
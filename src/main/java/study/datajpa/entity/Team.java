@@ -1,24 +1,45 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+//회원 검색의 팀 이름 조건용
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id" , "name"})
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.datajpa.sharding.ShardAwareSequenceGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "team_seq"), @Parameter(name = "increment_size", value = "50")})
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    //회원이 팀을 옮겨도(changeTeam) 팀 버전은 올리지 않는다 (연관관계 주인은 Member.team)
+    @OptimisticLock(excluded = true)
+    //팀 목록에서 members 에 접근하면 팀 100개씩 IN 쿼리 한번으로 초기화한다
+    //컬렉션은 2차 캐시에 넣지 않는다 : Member.team 만 바꾸면(changeTeam) 캐시된 members 가 무효화되지 않는다
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
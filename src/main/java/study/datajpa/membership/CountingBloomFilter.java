@@ -0,0 +1,152 @@
+package study.datajpa.membership;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 삭제를 지원하는 블룸 필터. 비트 대신 4비트 카운터를 long 하나에 16개씩 담고 CAS 로 갱신한다.
+ * mightContain 이 false 이면 확실히 없는 값이고, true 이면 있을 수도 있는 값이다. (false positive)
+ * 카운터가 15 에 도달하면 더 이상 늘리거나 줄이지 않는다. 그 칸은 항상 "있음"이 되어 false negative 가 생기지 않는다.
+ * 여러 스레드에서 동시에 사용할 수 있다.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+    private final long counterCount;
+    private final int hashCount;
+    private final AtomicLong entries = new AtomicLong();
+
+    /**
+     * @param expectedInsertions        예상 원소 수
+     * @param falsePositiveProbability 예상 원소 수일 때 목표 false positive 확률 (0 ~ 1)
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions 는 0 보다 커야 합니다. " + expectedInsertions);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability 는 0 과 1 사이여야 합니다. " + falsePositiveProbability);
+        }
+        //m = -n ln(p) / (ln 2)^2, k = m / n ln 2
+        long counters = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.words = new AtomicLongArray(wordCount);
+        this.counterCount = (long) wordCount * COUNTERS_PER_WORD;
+        this.hashCount = Math.max(1, (int) Math.round((double) counterCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            increment(index(h1 + i * h2));
+        }
+        entries.incrementAndGet();
+    }
+
+    //add 한 적이 없는 값을 remove 하면 다른 값의 카운터가 줄어 false negative 가 생길 수 있다
+    public void remove(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            decrement(index(h1 + i * h2));
+        }
+        entries.decrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            if (counter(index(h1 + i * h2)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //add - remove 횟수 (중복 add 포함)
+    public long entries() {
+        return entries.get();
+    }
+
+    public long counterCount() {
+        return counterCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    //현재 원소 수 기준 예상 false positive 확률 (1 - e^(-kn/m))^k
+    public double expectedFalsePositiveProbability() {
+        double n = Math.max(0, entries.get());
+        return Math.pow(1 - Math.exp(-hashCount * n / counterCount), hashCount);
+    }
+
+    private long index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % counterCount;
+    }
+
+    private long counter(long index) {
+        return (words.get((int) (index / COUNTERS_PER_WORD)) >>> shift(index)) & COUNTER_MASK;
+    }
+
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            if (counter == COUNTER_MASK) {
+                return;
+            }
+            if (words.compareAndSet(word, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            //0 : add 되지 않은 값, 15 : 포화되어 원래 값을 알 수 없으므로 줄이지 않는다
+            if (counter == 0 || counter == COUNTER_MASK) {
+                return;
+            }
+            if (words.compareAndSet(word, current, current - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    //UTF-8 바이트의 64비트 FNV-1a 에 murmur3 finalizer 를 적용한다. 상위/하위 32비트를 두 해시로 쓴다
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
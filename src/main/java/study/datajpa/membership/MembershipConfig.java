@@ -0,0 +1,36 @@
+package study.datajpa.membership;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * membership.enabled=true 이면 username 블룸 필터로 없는 회원 조회를 걸러낸다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "membership.enabled", havingValue = "true")
+@EnableConfigurationProperties(MembershipProperties.class)
+public class MembershipConfig {
+
+    @Bean
+    public UsernameIndex usernameIndex(MembershipProperties properties, MemberRepository memberRepository,
+                                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        return new UsernameIndex(properties, memberRepository, transactionManager, meterRegistry);
+    }
+
+    @Bean
+    public UsernameIndexListener usernameIndexListener(EntityManagerFactory emf, UsernameIndex usernameIndex) {
+        return new UsernameIndexListener(emf, usernameIndex);
+    }
+
+    @Bean
+    public UsernameLookupAspect usernameLookupAspect(UsernameIndex usernameIndex) {
+        return new UsernameLookupAspect(usernameIndex);
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.membership;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("membership")
+public class MembershipProperties {
+
+    //이 애플리케이션만 member 를 등록/삭제하는 경우에만 켠다 (다른 인스턴스의 등록은 필터에 반영되지 않는다)
+    private boolean enabled = false;
+
+    //필터 크기 : 예상 회원 수와 그 때의 목표 false positive 확률
+    private long expectedInsertions = 1_000_000;
+
+    private double falsePositiveProbability = 0.01;
+}
@@ -0,0 +1,122 @@
+package study.datajpa.membership;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 username 의 카운팅 블룸 필터. 없는 username 조회를 DB 까지 가지 않고 답한다.
+ * 애플리케이션이 시작되면 username 을 스트리밍 조회해서 채우고, 이후에는 UsernameIndexListener 가 변경을 반영한다.
+ * 채우는 중에는 모든 username 이 "있을 수 있음"으로 답한다. (조회를 막지 않는다)
+ *
+ * 메트릭
+ * - membership.lookups (result=negative|positive|bypass) : 필터로 답한 조회 / DB 로 보낸 조회 / 필터를 쓰지 않은 조회
+ * - membership.false_positives : 필터는 있다고 했지만 DB 에 없었던 조회
+ * - membership.false_positive_rate : false_positives / (negative + false_positives)
+ * - membership.entries, membership.expected_false_positive_rate
+ */
+@Slf4j
+public class UsernameIndex {
+
+    private final CountingBloomFilter filter;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean ready;
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter bypasses;
+    private final Counter falsePositives;
+
+    public UsernameIndex(MembershipProperties properties, MemberRepository memberRepository,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.filter = new CountingBloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+        this.memberRepository = memberRepository;
+        //읽기 전용으로 열면 복제 DB 로 라우팅될 수 있어서 primary 에서 읽는다 (복제 지연만큼 누락되면 false negative)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        negatives = meterRegistry.counter("membership.lookups", "result", "negative");
+        positives = meterRegistry.counter("membership.lookups", "result", "positive");
+        bypasses = meterRegistry.counter("membership.lookups", "result", "bypass");
+        falsePositives = meterRegistry.counter("membership.false_positives");
+        Gauge.builder("membership.false_positive_rate", this, UsernameIndex::falsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("membership.expected_false_positive_rate", filter, CountingBloomFilter::expectedFalsePositiveProbability)
+                .register(meterRegistry);
+        Gauge.builder("membership.entries", filter, CountingBloomFilter::entries)
+                .register(meterRegistry);
+    }
+
+    //UsernameIndexListener 가 먼저 등록된 뒤에 채우므로 채우는 도중의 등록도 빠지지 않는다
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        long count = transactionTemplate.execute(status -> {
+            long added = 0;
+            try (Stream<String> usernames = memberRepository.streamUsernames()) {
+                Iterator<String> iterator = usernames.iterator();
+                while (iterator.hasNext()) {
+                    add(iterator.next());
+                    added++;
+                }
+            }
+            return added;
+        });
+        ready = true;
+        log.info("username index built. usernames={}, counters={}, hashes={}, elapsed={}ms", count,
+                filter.counterCount(), filter.hashCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * false 이면 username 회원이 확실히 없다.
+     */
+    public boolean mightContain(String username) {
+        if (!ready || username == null) {
+            return true;
+        }
+        boolean mightContain = filter.mightContain(username);
+        (mightContain ? positives : negatives).increment();
+        return mightContain;
+    }
+
+    //필터가 있다고 했는데 DB 에 없었던 경우
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    public void add(String username) {
+        if (username != null) {
+            filter.add(username);
+        }
+    }
+
+    //채우는 중에는 삭제를 반영하지 않는다. 스트리밍 조회가 아직 읽지 않은 회원의 카운터를 먼저 줄이지 않기 위해서 (false positive 만 남는다)
+    public void remove(String username) {
+        if (ready && username != null) {
+            filter.remove(username);
+        }
+    }
+
+    //실제로 없는 username 조회 중 필터가 걸러내지 못한 비율
+    private double falsePositiveRate() {
+        double misses = negatives.count() + falsePositives.count();
+        return misses == 0 ? 0 : falsePositives.count() / misses;
+    }
+}
@@ -0,0 +1,101 @@
+package study.datajpa.membership;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Objects;
+
+/**
+ * Member 의 insert, update, delete 를 UsernameIndex 에 반영한다.
+ * 추가는 flush 시점에 바로 반영한다. 커밋 전에 다른 트랜잭션이 조회해도 DB 로 가므로 false negative 가 없다.
+ * (롤백되면 지우지 않고 false positive 로 남긴다)
+ * 삭제와 username 변경 전 값은 커밋된 뒤에 반영한다. 커밋 전에 빼면 아직 커밋되지 않은 삭제 때문에 있는 회원을 없다고 답한다.
+ * JPQL 벌크 연산(deleteAllInBatch 등)은 이벤트가 없으므로 반영되지 않는다. false positive 로만 남는다.
+ */
+public class UsernameIndexListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String USERNAME = "username";
+
+    private final EntityManagerFactory emf;
+    private final UsernameIndex usernameIndex;
+
+    public UsernameIndexListener(EntityManagerFactory emf, UsernameIndex usernameIndex) {
+        this.emf = emf;
+        this.usernameIndex = usernameIndex;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            usernameIndex.add(username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        String username = username(event.getPersister(), event.getState());
+        //merge 가 아닌 update 로 재연결된 경우 이전 값을 알 수 없다 -> 이전 username 은 false positive 로 남는다
+        String oldUsername = event.getOldState() == null ? null : username(event.getPersister(), event.getOldState());
+        if (Objects.equals(username, oldUsername)) {
+            return;
+        }
+        usernameIndex.add(username);
+        removeAfterCommit(event.getSession(), oldUsername);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            removeAfterCommit(event.getSession(), username(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void removeAfterCommit(EventSource session, String username) {
+        if (username == null) {
+            return;
+        }
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            if (success) {
+                usernameIndex.remove(username);
+            }
+        });
+    }
+
+    private String username(EntityPersister persister, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex(USERNAME)];
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.membership;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * MemberRepository.findOptionalByUsername / findMemberByUsername 전에 UsernameIndex 를 확인한다.
+ * 필터에 없으면 쿼리 없이 Optional.empty() / null 을 반환한다.
+ * 쓰기 트랜잭션 안에서는 필터를 쓰지 않는다. 같은 트랜잭션에서 persist 한 회원은 flush 전이라 필터에 없을 수 있다.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class UsernameLookupAspect {
+
+    private final UsernameIndex usernameIndex;
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.findOptionalByUsername(String)) && args(username)")
+    public Object findOptional(ProceedingJoinPoint joinPoint, String username) throws Throwable {
+        if (bypass()) {
+            return joinPoint.proceed();
+        }
+        if (!usernameIndex.mightContain(username)) {
+            return Optional.empty();
+        }
+        Object result = joinPoint.proceed();
+        if (!((Optional<?>) result).isPresent()) {
+            usernameIndex.recordFalsePositive();
+        }
+        return result;
+    }
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.findMemberByUsername(String)) && args(username)")
+    public Object findMember(ProceedingJoinPoint joinPoint, String username) throws Throwable {
+        if (bypass()) {
+            return joinPoint.proceed();
+        }
+        if (!usernameIndex.mightContain(username)) {
+            return null;
+        }
+        Object result = joinPoint.proceed();
+        if (result == null) {
+            usernameIndex.recordFalsePositive();
+        }
+        return result;
+    }
+
+    private boolean bypass() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            usernameIndex.recordBypass();
+            return true;
+        }
+        return false;
+    }
+}
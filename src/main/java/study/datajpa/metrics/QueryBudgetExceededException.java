@@ -0,0 +1,8 @@
+package study.datajpa.metrics;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String method, long statements, int budget) {
+        super(method + " 이(가) SQL " + statements + "번을 실행했습니다. (허용 " + budget + "번)");
+    }
+}
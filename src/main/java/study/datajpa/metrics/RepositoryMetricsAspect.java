@@ -0,0 +1,109 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스프링 데이터 리포지토리 프록시와 @Repository 클래스(*JpaRepository)의 메서드마다
+ * 호출 수, 응답시간(p50/p99), 실행한 SQL 수, 조회한 row 수를 기록한다.
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RepositoryMetricsProperties.class)
+public class RepositoryMetricsAspect {
+
+    private static final String BASE_PACKAGE = "study.datajpa";
+
+    private final MeterRegistry meterRegistry;
+    private final RepositoryMetricsProperties properties;
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final Map<String, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))" +
+            " || (@within(org.springframework.stereotype.Repository) && execution(public * study.datajpa.repository..*.*(..)))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName();
+        long statementsBefore = SqlStatementCounter.statements();
+        long rowsBefore = SqlStatementCounter.rows();
+        long start = System.nanoTime();
+
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } finally {
+            meters.computeIfAbsent(method, this::createMeters).record(
+                    System.nanoTime() - start,
+                    SqlStatementCounter.statements() - statementsBefore,
+                    SqlStatementCounter.rows() - rowsBefore);
+        }
+        checkQueryBudget(method, SqlStatementCounter.statements() - statementsBefore);
+        return result;
+    }
+
+    private void checkQueryBudget(String method, long statements) {
+        Integer budget = properties.getQueryBudget().get(method);
+        if (budget == null || statements <= budget) {
+            return;
+        }
+        if (properties.isFailOnQueryBudget()) {
+            throw new QueryBudgetExceededException(method, statements, budget);
+        }
+        log.warn("query budget exceeded. method={}, statements={}, budget={}", method, statements, budget);
+    }
+
+    //스프링 데이터 리포지토리는 JDK 프록시이므로 구현한 리포지토리 인터페이스 이름을 쓴다
+    private String repositoryName(Object target) {
+        return repositoryNames.computeIfAbsent(target.getClass(), type -> {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getName().startsWith(BASE_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return ClassUtils.getUserClass(AopUtils.getTargetClass(target)).getSimpleName();
+        });
+    }
+
+    private MethodMeters createMeters(String method) {
+        return new MethodMeters(
+                Timer.builder("repository.invocations")
+                        .tag("method", method)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.statements")
+                        .tag("method", method)
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.rows")
+                        .tag("method", method)
+                        .register(meterRegistry));
+    }
+
+    @RequiredArgsConstructor
+    private static class MethodMeters {
+        private final Timer latency;
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+
+        void record(long elapsedNanos, long statementCount, long rowCount) {
+            latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            statements.record(statementCount);
+            rows.record(rowCount);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties("repository.metrics")
+public class RepositoryMetricsProperties {
+
+    //호출당 SQL 수가 예산을 넘으면 예외를 던진다 (기본은 집계만)
+    private boolean failOnQueryBudget = false;
+
+    //"리포지토리.메서드" -> 호출당 허용 SQL 수
+    private Map<String, Integer> queryBudget = new HashMap<>();
+}
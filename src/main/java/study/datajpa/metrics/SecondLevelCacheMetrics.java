@@ -0,0 +1,38 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 2차 캐시(ehcache) region 마다 hit/miss/put/removal 수를 cache.gets, cache.puts, cache.removals 로 기록한다. (cache 태그)
+ * ehcache.xml 의 jsr107 enable-statistics 로 켠 캐시 통계를 읽기만 하므로
+ * 세션마다 비용이 드는 하이버네이트 generate_statistics 없이 운영에서도 캐시 효율을 볼 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        RegionFactory regionFactory = emf.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory)) {
+            return;
+        }
+        CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.of("cacheManager", "hibernate"));
+        }
+    }
+}
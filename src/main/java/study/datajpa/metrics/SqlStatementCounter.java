@@ -0,0 +1,29 @@
+package study.datajpa.metrics;
+
+/**
+ * 현재 스레드에서 실행된 SQL 수와 조회한 row 수.
+ * 누적값만 올라가므로 호출 전후 차이로 메서드별 수를 구한다.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private SqlStatementCounter() {
+    }
+
+    public static long statements() {
+        return COUNTS.get()[0];
+    }
+
+    public static long rows() {
+        return COUNTS.get()[1];
+    }
+
+    static void statementExecuted() {
+        COUNTS.get()[0]++;
+    }
+
+    static void rowFetched() {
+        COUNTS.get()[1]++;
+    }
+}
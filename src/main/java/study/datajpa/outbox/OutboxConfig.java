@@ -0,0 +1,35 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    //relay 를 켤 때만 파일을 연다
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public FileOutboxSink fileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        return new FileOutboxSink(Paths.get(properties.getFile()), objectMapper);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   OutboxSink sink, OutboxProperties properties) {
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, transactionManager, sink, properties.getRelay().getBatchSize());
+        relay.start(properties.getRelay().getPollInterval());
+        return relay;
+    }
+}
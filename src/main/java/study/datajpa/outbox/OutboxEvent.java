@@ -0,0 +1,46 @@
+package study.datajpa.outbox;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 변경 이벤트 outbox 테이블. 쓰기/읽기는 JDBC 배치로 한다. (OutboxRecorder, OutboxRelay)
+ * JDBC 배치 insert 에서 생성 키를 받을 필요가 없으므로 IDENTITY 를 쓴다.
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    @Column(nullable = false)
+    private String aggregateType;
+
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType eventType;
+
+    @Lob
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
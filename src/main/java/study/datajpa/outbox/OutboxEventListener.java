@@ -0,0 +1,108 @@
+package study.datajpa.outbox;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Member / Team 의 insert, update, delete 를 하이버네이트 이벤트로 받아서 outbox 에 기록한다.
+ * payload 는 id 와 컬럼 값(연관 엔티티는 id), 컬렉션은 제외한다.
+ * JPQL 벌크 연산은 이벤트가 발생하지 않으므로 벌크 연산 코드에서 직접 기록한다.
+ */
+@Component
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final OutboxRecorder outboxRecorder;
+
+    public OutboxEventListener(EntityManagerFactory emf, OutboxRecorder outboxRecorder) {
+        this.emf = emf;
+        this.outboxRecorder = outboxRecorder;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getEntity(), event.getId(), OutboxEventType.INSERT, event.getPersister(), event.getState(), event.getSession());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getEntity(), event.getId(), OutboxEventType.UPDATE, event.getPersister(), event.getState(), event.getSession());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getEntity(), event.getId(), OutboxEventType.DELETE, event.getPersister(), event.getDeletedState(), event.getSession());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(Object entity, Object id, OutboxEventType eventType, EntityPersister persister,
+                        Object[] state, EventSource session) {
+        if (!(entity instanceof Member) && !(entity instanceof Team)) {
+            return;
+        }
+        outboxRecorder.record(session, entity.getClass().getSimpleName(), (Long) id, eventType,
+                payload(id, persister, state, session));
+    }
+
+    private Map<String, Object> payload(Object id, EntityPersister persister, Object[] state, EventSource session) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", id);
+        if (state == null) {
+            return payload;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = state[i];
+            if (value != null && types[i].isEntityType()) {
+                payload.put(names[i] + "Id", identifier(value, session));
+            } else {
+                payload.put(names[i], value);
+            }
+        }
+        return payload;
+    }
+
+    private Object identifier(Object entity, EventSource session) {
+        if (entity instanceof HibernateProxy) {
+            return ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        return session.getEntityPersister(null, entity).getIdentifier(entity, session);
+    }
+}
@@ -0,0 +1,7 @@
+package study.datajpa.outbox;
+
+public enum OutboxEventType {
+    INSERT, UPDATE, DELETE,
+    //JPQL 벌크 수정 : payload 에 변경 내용(식)만 남는다
+    BULK_UPDATE
+}
@@ -0,0 +1,31 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+//싱크로 보내는 이벤트 한 건
+@Getter
+@ToString
+public class OutboxMessage {
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final OutboxEventType eventType;
+    //이미 JSON 이므로 그대로 쓴다
+    @JsonRawValue
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxMessage(Long id, String aggregateType, Long aggregateId, OutboxEventType eventType,
+                         String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("outbox")
+public class OutboxProperties {
+
+    private final Relay relay = new Relay();
+
+    //다른 OutboxSink 빈이 없을 때 쓰는 파일 싱크 경로
+    private String file = "build/outbox/events.jsonl";
+
+    @Getter
+    @Setter
+    public static class Relay {
+        private boolean enabled = false;
+
+        //한번에 읽어서 보내는 이벤트 수
+        private int batchSize = 5000;
+
+        //outbox 가 비었을 때 다시 확인하는 간격 (배치가 가득 차면 바로 다음 배치를 읽는다)
+        private Duration pollInterval = Duration.ofMillis(200);
+    }
+}
@@ -0,0 +1,116 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 변경 이벤트를 세션(트랜잭션)마다 모아 두었다가 커밋 직전에 outbox 테이블에 JDBC 배치 insert 한다.
+ * 하이버네이트는 커밋할 때 flush -> BeforeTransactionCompletionProcess -> 커밋 순서로 실행하므로
+ * 커밋 시점 flush 에서 생긴 이벤트까지 같은 커넥션/트랜잭션에서 함께 커밋/롤백된다.
+ * 버퍼는 호출한 쪽이 넘긴 세션에 붙인다. (스레드에 묶인 세션을 찾지 않는다)
+ * 세션이 없거나 세션의 트랜잭션이 진행 중이 아니면 바로 insert 한다.
+ */
+@Component
+public class OutboxRecorder {
+
+    private static final String INSERT_SQL = "insert into outbox_event" +
+            " (aggregate_type, aggregate_id, event_type, payload, created_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<SessionImplementor, Buffer> buffers = new ConcurrentHashMap<>();
+
+    public OutboxRecorder(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void record(SessionImplementor session, String aggregateType, Long aggregateId,
+                       OutboxEventType eventType, Object payload) {
+        Object[] row = {aggregateType, aggregateId, eventType.name(), toJson(payload), Timestamp.valueOf(LocalDateTime.now())};
+        if (session == null || !session.isTransactionInProgress()) {
+            jdbcTemplate.update(INSERT_SQL, row);
+            return;
+        }
+        buffers.computeIfAbsent(session, this::newBuffer).rows.add(row);
+    }
+
+    //JPQL 벌크 수정은 하이버네이트 이벤트가 없으므로 대상 id 마다 변경 내용(식)을 기록한다. em 은 벌크 수정을 실행한 EntityManager
+    public void recordBulkUpdate(EntityManager em, String aggregateType, Collection<Long> ids, String change) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Long id : ids) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("id", id);
+            payload.put("change", change);
+            record(session, aggregateType, id, OutboxEventType.BULK_UPDATE, payload);
+        }
+    }
+
+    private Buffer newBuffer(SessionImplementor session) {
+        Buffer buffer = new Buffer(session);
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) buffer);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) buffer);
+        return buffer;
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload 를 JSON 으로 바꿀 수 없습니다. payload=" + payload, e);
+        }
+    }
+
+    private class Buffer implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+        private final SessionImplementor session;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private Buffer(SessionImplementor session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                    for (Object[] row : rows) {
+                        statement.setString(1, (String) row[0]);
+                        statement.setObject(2, row[1], Types.BIGINT);
+                        statement.setString(3, (String) row[2]);
+                        statement.setString(4, (String) row[3]);
+                        statement.setTimestamp(5, (Timestamp) row[4]);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+            rows.clear();
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            buffers.remove(this.session);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * outbox 테이블을 id 순서로 batchSize 건씩 읽어서 싱크로 보내고 보낸 이벤트를 지운다.
+ * 쓰기 트랜잭션과 별도 스레드에서 실행되므로 커밋 시간에 영향을 주지 않는다.
+ * 보내고 지우기 전에 실패하면 같은 이벤트를 다시 보낸다. (at-least-once, 받는 쪽은 id 로 중복을 거른다)
+ * 아직 커밋되지 않은 작은 id 가 있을 수 있으므로 id 커서 대신 보낸 id 만 지운다.
+ */
+@Slf4j
+public class OutboxRelay implements AutoCloseable {
+
+    private static final String SELECT_SQL = "select outbox_event_id, aggregate_type, aggregate_id, event_type," +
+            " payload, created_at from outbox_event order by outbox_event_id limit ?";
+    private static final String DELETE_SQL = "delete from outbox_event where outbox_event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       OutboxSink sink, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    public void start(Duration pollInterval) {
+        scheduler.scheduleWithFixedDelay(this::drain, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //outbox 가 빌 때까지(배치가 가득 차지 않을 때까지) 보낸다
+    public void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            log.warn("outbox relay failed, retry on next poll", e);
+        }
+    }
+
+    //한 배치를 보내고 보낸 건수를 반환한다
+    public int relayBatch() throws Exception {
+        List<OutboxMessage> messages = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new OutboxMessage(
+                rs.getLong(1),
+                rs.getString(2),
+                (Long) rs.getObject(3),
+                OutboxEventType.valueOf(rs.getString(4)),
+                rs.getString(5),
+                rs.getTimestamp(6).toLocalDateTime()), batchSize);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        sink.publish(messages);
+        List<Object[]> ids = messages.stream()
+                .map(message -> new Object[]{message.getId()})
+                .collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(DELETE_SQL, ids));
+        return messages.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
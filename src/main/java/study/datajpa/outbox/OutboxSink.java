@@ -0,0 +1,11 @@
+package study.datajpa.outbox;
+
+import java.util.List;
+
+/**
+ * outbox 이벤트를 받는 곳 (메시지 큐 등). 예외를 던지면 같은 배치를 다시 보낸다. (at-least-once)
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages) throws Exception;
+}
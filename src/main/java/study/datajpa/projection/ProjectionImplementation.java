@@ -0,0 +1,16 @@
+package study.datajpa.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 인터페이스 기반 프로젝션의 구현 클래스를 지정한다.
+ * 지정하면 행마다 프록시를 만들지 않고 구현 클래스의 생성자로 바로 만든다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ProjectionImplementation {
+    Class<?> value();
+}
@@ -0,0 +1,85 @@
+package study.datajpa.projection;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * @ProjectionImplementation 이 있는 인터페이스 프로젝션의 조회할 프로퍼티와 생성 방법을 한번만 분석해서 캐시한다.
+ * 구현 클래스의 public 생성자(하나만 있어야 한다) 파라미터 이름 = 조회할 프로퍼티(엔티티 속성 이름과 같아야 한다)
+ * 그 외 타입(DTO 클래스, 엔티티, @Value 를 쓰는 open projection 등)은 스프링 데이터 동적 projection 으로 조회한다.
+ */
+public final class ProjectionMetadata<T> {
+
+    private static final Map<Class<?>, ProjectionMetadata<?>> CACHE = new ConcurrentHashMap<>();
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Class<T> type;
+    private final List<String> properties;
+    private final Constructor<?> constructor;
+
+    private ProjectionMetadata(Class<T> type, List<String> properties, Constructor<?> constructor) {
+        this.type = type;
+        this.properties = properties;
+        this.constructor = constructor;
+    }
+
+    //구현 클래스로 바로 만들 수 있는 타입인지
+    public static boolean supports(Class<?> type) {
+        return type.isInterface() && type.isAnnotationPresent(ProjectionImplementation.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ProjectionMetadata<T> of(Class<T> type) {
+        if (!supports(type)) {
+            throw new IllegalArgumentException("@ProjectionImplementation 이 있는 인터페이스만 사용할 수 있습니다. type=" + type.getName());
+        }
+        return (ProjectionMetadata<T>) CACHE.computeIfAbsent(type, ProjectionMetadata::resolve);
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    //JPQL select 절 ex) "m.username, m.age"
+    public String selection(String alias) {
+        return properties.stream()
+                .map(property -> alias + "." + property)
+                .collect(Collectors.joining(", "));
+    }
+
+    //조회 결과 한 행(단일 컬럼이면 값, 여러 컬럼이면 Object[])으로 프로젝션을 만든다
+    @SuppressWarnings("unchecked")
+    public T instantiate(Object row) {
+        Object[] values = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+        try {
+            return (T) constructor.newInstance(values);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("프로젝션 생성 실패. type=" + type.getName(), e);
+        }
+    }
+
+    private static <T> ProjectionMetadata<T> resolve(Class<T> type) {
+        Class<?> implementation = type.getAnnotation(ProjectionImplementation.class).value();
+        if (!type.isAssignableFrom(implementation)) {
+            throw new IllegalArgumentException(
+                    implementation.getName() + " 은(는) " + type.getName() + " 의 구현 클래스가 아닙니다.");
+        }
+        Constructor<?>[] constructors = implementation.getConstructors();
+        if (constructors.length != 1) {
+            throw new IllegalArgumentException("public 생성자가 하나인 구현 클래스만 사용할 수 있습니다. type=" + implementation.getName());
+        }
+        String[] names = PARAMETER_NAMES.getParameterNames(constructors[0]);
+        if (names == null) {
+            throw new IllegalArgumentException("생성자 파라미터 이름을 알 수 없습니다. -parameters 옵션으로 컴파일하세요. type=" + implementation.getName());
+        }
+        return new ProjectionMetadata<>(type, Collections.unmodifiableList(Arrays.asList(names)), constructors[0]);
+    }
+}
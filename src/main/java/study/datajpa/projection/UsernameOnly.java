@@ -1,5 +1,6 @@
 package study.datajpa.projection;
 
+@ProjectionImplementation(UsernameOnlyImpl.class)
 public interface UsernameOnly {
     String getUsername();
 }
@@ -0,0 +1,15 @@
+package study.datajpa.projection;
+
+//UsernameOnly 구현 클래스 : 행마다 프록시 대신 생성자로 바로 만든다 (ProjectionMetadata)
+public class UsernameOnlyImpl implements UsernameOnly {
+    private final String username;
+
+    public UsernameOnlyImpl(String username) {
+        this.username = username;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
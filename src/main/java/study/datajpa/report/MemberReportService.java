@@ -0,0 +1,46 @@
+package study.datajpa.report;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import study.datajpa.async.RepositoryExecutor;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 회원 집계 리포트. 집계는 MemberRepository 의 group by 쿼리 한번으로 계산하고,
+ * cached 조회는 report.refresh-after 마다 백그라운드에서 다시 계산한 값을 반환한다.
+ */
+@Service
+public class MemberReportService {
+
+    private final MemberRepository memberRepository;
+    private final RefreshingValue<List<TeamStatsDto>> teamStats;
+    private final RefreshingValue<List<AgeCountDto>> ageHistogram;
+    private final RefreshingValue<AgeStatsDto> ageStats;
+
+    public MemberReportService(MemberRepository memberRepository, RepositoryExecutor repositoryExecutor,
+                               @Value("${report.refresh-after:30s}") Duration refreshAfter,
+                               @Value("${report.expire-after:10m}") Duration expireAfter) {
+        this.memberRepository = memberRepository;
+        this.teamStats = new RefreshingValue<>(memberRepository::findTeamStats, refreshAfter, expireAfter, repositoryExecutor);
+        this.ageHistogram = new RefreshingValue<>(memberRepository::findAgeHistogram, refreshAfter, expireAfter, repositoryExecutor);
+        this.ageStats = new RefreshingValue<>(memberRepository::findAgeStats, refreshAfter, expireAfter, repositoryExecutor);
+    }
+
+    public List<TeamStatsDto> teamStats(boolean cached) {
+        return cached ? teamStats.get() : memberRepository.findTeamStats();
+    }
+
+    public List<AgeCountDto> ageHistogram(boolean cached) {
+        return cached ? ageHistogram.get() : memberRepository.findAgeHistogram();
+    }
+
+    public AgeStatsDto ageStats(boolean cached) {
+        return cached ? ageStats.get() : memberRepository.findAgeStats();
+    }
+}
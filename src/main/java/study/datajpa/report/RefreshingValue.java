@@ -0,0 +1,87 @@
+package study.datajpa.report;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 값 하나를 캐시한다. (refresh-after-write)
+ * 저장 후 refreshAfter 가 지나면 기존 값을 바로 반환하고 executor 에서 한번만 다시 읽는다.
+ * expireAfter 가 지났거나 아직 값이 없으면 호출한 스레드에서 읽는다.
+ * 쓰기로 무효화하지 않으므로 값은 최대 expireAfter 까지 오래될 수 있다.
+ */
+@Slf4j
+public class RefreshingValue<T> {
+
+    private final Supplier<T> loader;
+    private final long refreshAfterNanos;
+    private final long expireAfterNanos;
+    private final Executor executor;
+    private final LongSupplier nanoTime;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Loaded<T> loaded;
+
+    public RefreshingValue(Supplier<T> loader, Duration refreshAfter, Duration expireAfter, Executor executor) {
+        this(loader, refreshAfter, expireAfter, executor, System::nanoTime);
+    }
+
+    //테스트에서 시간을 정할 수 있게 한다
+    RefreshingValue(Supplier<T> loader, Duration refreshAfter, Duration expireAfter, Executor executor, LongSupplier nanoTime) {
+        if (refreshAfter.compareTo(expireAfter) > 0) {
+            throw new IllegalArgumentException("refreshAfter 는 expireAfter 보다 길 수 없습니다.");
+        }
+        this.loader = loader;
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.expireAfterNanos = expireAfter.toNanos();
+        this.executor = executor;
+        this.nanoTime = nanoTime;
+    }
+
+    public T get() {
+        Loaded<T> current = loaded;
+        long now = nanoTime.getAsLong();
+        if (current == null || now - current.loadedAt >= expireAfterNanos) {
+            return load();
+        }
+        if (now - current.loadedAt >= refreshAfterNanos && refreshing.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        load();
+                    } catch (RuntimeException e) {
+                        log.warn("refresh failed, keep previous value", e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //다음 호출에서 다시 시도한다
+                refreshing.set(false);
+                log.warn("refresh rejected, keep previous value", e);
+            }
+        }
+        return current.value;
+    }
+
+    private T load() {
+        T value = loader.get();
+        loaded = new Loaded<>(value, nanoTime.getAsLong());
+        return value;
+    }
+
+    private static class Loaded<T> {
+        private final T value;
+        private final long loadedAt;
+
+        private Loaded(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 결과를 조건(key)별로 짧게 캐시한다.
+ * TTL 동안은 등록/삭제가 반영되지 않으므로 전체 개수가 조금 틀려도 되는 화면에만 쓴다.
+ * 조건 조합이 많아도 maxEntries 개를 넘지 않는다. 가득 차면 만료된 항목을 지우고, 그래도 가득 차 있으면 캐시하지 않는다.
+ */
+class CountCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    CountCache(Duration ttl) {
+        this(ttl, DEFAULT_MAX_ENTRIES);
+    }
+
+    CountCache(Duration ttl, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries 는 0보다 커야 합니다. maxEntries=" + maxEntries);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean contains(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    long get(String key, LongSupplier loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry.count;
+        }
+        long count = loader.getAsLong();
+        put(key, new Entry(count, now + ttlNanos), now);
+        return count;
+    }
+
+    //조회는 잠금 없이 하고, 추가만 동기화해서 개수 상한을 넘지 않게 한다
+    private synchronized void put(String key, Entry entry, long now) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            entries.values().removeIf(e -> e.isExpired(now));
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long expiresAt;
+
+        private Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 긴 IN 목록을 CHUNK_SIZE 개씩 나눠서 조회하고 결과를 합친다.
+ * 중복 값은 한번만 보내고, 각 청크는 하이버네이트 in_clause_parameter_padding 으로
+ * 2의 거듭제곱 개수로 채워지므로 목록 길이가 달라도 SQL 모양은 몇 가지로 고정된다. (쿼리 플랜/statement 캐시 재사용)
+ * 같은 트랜잭션(커넥션)에서 청크를 차례로 실행한다.
+ */
+public final class InClauseSupport {
+
+    //2의 거듭제곱으로 맞춘다 (오라클 IN 목록 최대 1000개)
+    public static final int CHUNK_SIZE = 512;
+
+    private InClauseSupport() {
+    }
+
+    public static <T, R> List<R> findInChunks(Collection<T> values, Function<List<T>, List<R>> query) {
+        return findInChunks(values, CHUNK_SIZE, query);
+    }
+
+    public static <T, R> List<R> findInChunks(Collection<T> values, int chunkSize,
+                                              Function<List<T>, List<R>> query) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 0보다 커야 합니다. chunkSize=" + chunkSize);
+        }
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        if (distinct.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (distinct.size() <= chunkSize) {
+            return query.apply(distinct);
+        }
+        List<R> result = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            result.addAll(query.apply(distinct.subList(from, Math.min(from + chunkSize, distinct.size()))));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+public interface ItemRepositoryCustom {
+
+    //대량 동기화 : 청크마다 IN 쿼리 한번으로 이미 있는 상품을 걸러내고 새 상품만 배치 insert 한다. 저장한 건수를 반환
+    long upsertAll(Iterable<Item> items);
+}
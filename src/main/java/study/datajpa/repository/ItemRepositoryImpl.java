@@ -0,0 +1,63 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    //청크 크기 : 청크마다 배치 insert 한번이 되도록 application.yml 의 hibernate.jdbc.batch_size 와 맞춘다
+    static final int CHUNK_SIZE = 100;
+
+    private final EntityManager em;
+
+    /**
+     * saveAll 은 식별자를 직접 할당하는 상품마다 isNew 로 persist / merge 를 고르는데,
+     * 이미 저장된 상품은 merge 가 상품마다 select 를 한번씩 실행한다.
+     * 여기서는 CHUNK_SIZE 단위로 나눠서 청크마다 select 한번 + 배치 insert 한번만 실행한다.
+     * Item 은 식별자와 등록일 외에 수정할 컬럼이 없으므로 이미 있는 상품은 update 하지 않고 건너뛴다.
+     * 주의 : 청크마다 clear 를 하므로 같은 트랜잭션에서 조회한 엔티티는 준영속 상태가 된다.
+     * 식별자를 직접 할당하므로 id 가 null 인 상품은 IllegalArgumentException (그 전 청크는 이미 flush 되었으므로 트랜잭션째 롤백된다)
+     */
+    @Override
+    @Transactional
+    public long upsertAll(Iterable<Item> items) {
+        long inserted = 0;
+        //같은 청크 안의 중복 id 는 하나만 남긴다
+        Map<String, Item> chunk = new LinkedHashMap<>();
+        for (Item item : items) {
+            if (item == null || item.getId() == null) {
+                throw new IllegalArgumentException("id 가 없는 상품은 저장할 수 없습니다. item=" + item);
+            }
+            chunk.putIfAbsent(item.getId(), item);
+            if (chunk.size() == CHUNK_SIZE) {
+                inserted += insertMissing(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted += insertMissing(chunk);
+        }
+        return inserted;
+    }
+
+    private int insertMissing(Map<String, Item> chunk) {
+        List<String> existingIds = em.createQuery("select i.id from Item i where i.id in :ids", String.class)
+                .setParameter("ids", chunk.keySet())
+                .getResultList();
+        chunk.keySet().removeAll(existingIds);
+
+        for (Item item : chunk.values()) {
+            em.persist(item);
+        }
+        em.flush();
+        em.clear();
+        return chunk.size();
+    }
+}
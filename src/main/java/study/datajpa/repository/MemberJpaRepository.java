@@ -1,19 +1,25 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.Window;
 import study.datajpa.entity.Member;
+import study.datajpa.outbox.OutboxRecorder;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
-import java.util.List;
 import java.util.Optional;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
     @PersistenceContext
     private EntityManager em;
 
+    private final OutboxRecorder outboxRecorder;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -71,16 +77,33 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    //keyset 페이징 : MemberKeysetQuery 참고, 첫 페이지는 cursor = null
+    public Window<Member> findWindowByAge(int age, MemberCursor cursor, int limit) {
+        return MemberKeysetQuery.findWindowByAge(em, age, cursor, limit);
+    }
+
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
                 .setParameter("age", age)
                 .getSingleResult();
     }
 
+    //벌크 연산 후 영속성 컨텍스트 전체를 비우지 않고 변경 대상 중 관리 중인 회원만 refresh 한다
+    //대상 행을 잠근 다음 그 id 로 update 하므로 반환 개수와 기록하는 id 가 같다
+    //하이버네이트 이벤트가 발생하지 않으므로 outbox 이벤트는 직접 기록한다
     public int bulkAgePlus(int age) {
+        List<Long> ids = PersistenceContextSupport.lockMemberIdsByAge(em, age, null);
+        if (ids.isEmpty()) {
+            return 0;
+        }
         int resultCount = em.createQuery(
-                "update Member m set m.age = m.age + 1" +
-                        "where m.age >= :age").setParameter("age", age).executeUpdate();
+                "update versioned Member m set m.age = m.age + 1" +
+                        " where m.id in :ids and m.age >= :age")
+                .setParameter("ids", ids)
+                .setParameter("age", age)
+                .executeUpdate();
+        PersistenceContextSupport.refreshManaged(em, Member.class, ids);
+        outboxRecorder.recordBulkUpdate(em, "Member", ids, "age = age + 1");
         return resultCount;
     }
 }
@@ -0,0 +1,45 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.Window;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+/**
+ * 회원 keyset 페이징 쿼리. MemberRepository(MemberRepositoryImpl)와 MemberJpaRepository 가 함께 쓴다.
+ * (username desc nulls last, id asc) 순서로 정렬하고, 커서 다음 회원부터 limit 건 조회한다.
+ * offset 없이 마지막으로 본 (username, id) 다음부터 조회하고 count 쿼리도 실행하지 않으므로 페이지 깊이와 관계없이 비용이 같다.
+ */
+class MemberKeysetQuery {
+
+    private MemberKeysetQuery() {
+    }
+
+    /**
+     * @param cursor 이전 페이지의 마지막 회원, 첫 페이지는 null
+     */
+    static Window<Member> findWindowByAge(EntityManager em, int age, MemberCursor cursor, int limit) {
+        if (limit <= 0 || limit == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("limit 은 0 보다 크고 " + Integer.MAX_VALUE + " 보다 작아야 합니다. limit=" + limit);
+        }
+        String jpql = "select m from Member m where m.age = :age";
+        if (cursor != null) {
+            //username 이 null 인 회원은 맨 뒤에 id 순서로 온다
+            jpql += cursor.getUsername() == null
+                    ? " and m.username is null and m.id > :id"
+                    : " and (m.username < :username or (m.username = :username and m.id > :id) or m.username is null)";
+        }
+        TypedQuery<Member> query = em.createQuery(jpql + " order by m.username desc nulls last, m.id asc", Member.class)
+                .setParameter("age", age)
+                .setMaxResults(limit + 1);
+        if (cursor != null) {
+            query.setParameter("id", cursor.getId());
+            if (cursor.getUsername() != null) {
+                query.setParameter("username", cursor.getUsername());
+            }
+        }
+        return Window.ofMembers(query.getResultList(), limit);
+    }
+}
@@ -4,19 +4,35 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.TeamStatsDto;
 import study.datajpa.entity.Member;
-import study.datajpa.projection.UsernameOnly;
+import study.datajpa.projection.ProjectionMetadata;
 
 import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+//sharding.enabled=true 이면 ShardRoutingAspect 가 id / 팀으로 shard 를 정하거나 모든 shard 에서 조회한다
+//라우팅 대상이 아닌 메서드는 ShardContext 로 shard 를 지정해서 호출해야 한다 (ShardRoutingAspect 참고)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
-    //동적 projection
-    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
-
-    List<UsernameOnly> findProjectonsByUsername(String username);
+    //동적 projection : @ProjectionImplementation 인터페이스는 구현 클래스로 바로 만들고 (MemberRepositoryCustom)
+    //그 외 타입(DTO 클래스, 엔티티, open projection)은 스프링 데이터 동적 projection 으로 조회한다
+    default <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        if (ProjectionMetadata.supports(type)) {
+            return findImplementedProjectionsByUsername(username, type);
+        }
+        return findProjectedByUsername(username, type);
+    }
+
+    <T> List<T> findProjectedByUsername(String username, Class<T> type);
 /*
     @Query(name = "Member.findByUsername")
     List<Member> findByUsername(@Param("username") String username);
@@ -36,11 +52,73 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             "from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    //단건 DTO 조회 : 팀이 없는 회원도 조회한다
+    @Query("select new study.datajpa.dto.MemberDto(m.id ,m.username, t.name)" +
+            "from Member m left join m.team t where m.id = :id")
+    Optional<MemberDto> findMemberDtoById(@Param("id") Long id);
+
+    //@Query : DTO 스트림 조회, fetch size 단위로 커서를 읽으므로 전체 목록을 메모리에 올리지 않는다
+    //트랜잭션 안에서 호출하고 사용 후 close 해야 한다
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select new study.datajpa.dto.MemberDto(m.id ,m.username, t.name)" +
+            "from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
+
+    //username 만 스트림 조회 (UsernameIndex 를 채울 때 사용)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select m.username from Member m")
+    Stream<String> streamUsernames();
+
+    //집계 : 엔티티를 로딩하지 않고 group by 쿼리 한번으로 DTO 를 만든다
+    //팀별 회원 수와 평균 나이, 회원이 없는 팀은 0명
+    @Query("select new study.datajpa.dto.TeamStatsDto(t.id, t.name, count(m), avg(m.age))" +
+            " from Team t left join t.members m group by t.id, t.name order by t.name")
+    List<TeamStatsDto> findTeamStats();
+
+    //나이별 회원 수
+    @Query("select new study.datajpa.dto.AgeCountDto(m.age, count(m))" +
+            " from Member m group by m.age order by m.age")
+    List<AgeCountDto> findAgeHistogram();
+
+    //전체 회원 수와 평균/최소/최대 나이
+    @Query("select new study.datajpa.dto.AgeStatsDto(count(m), avg(m.age), min(m.age), max(m.age))" +
+            " from Member m")
+    AgeStatsDto findAgeStats();
+
+    //비동기 조회 : repositoryExecutor 스레드에서 실행된다
+    //@Async 가 트랜잭션보다 바깥에서 적용되므로 @Transactional 은 실행 스레드에서 호출마다 새로 열린다 (별도 커넥션)
+    //호출한 쪽 트랜잭션에는 참여하지 않는다. 결과는 준영속 상태이므로 지연로딩이 필요 없는 조회만 둔다
+    @Async("repositoryExecutor")
+    @Transactional(readOnly = true)
+    @Query("select new study.datajpa.dto.MemberDto(m.id ,m.username, t.name)" +
+            "from Member m join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync();
+
+    @Async("repositoryExecutor")
+    @Transactional(readOnly = true)
+    @Query("select m.username from Member m")
+    CompletableFuture<List<String>> findUsernameListAsync();
+
+    @Async("repositoryExecutor")
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = {"team"})
+    CompletableFuture<Page<Member>> findAsyncByAge(int age, Pageable pageable);
+
     @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
+    List<Member> findByUsernameIn(@Param("names") Collection<String> names);
+
+    //IN 목록이 길면 InClauseSupport.CHUNK_SIZE 개씩 나눠서 조회한다. 중복 이름은 한번만 조회
+    default List<Member> findByNames(List<String> names) {
+        return InClauseSupport.findInChunks(names, this::findByUsernameIn);
+    }
 
     List<Member> findListByUsername(String username); //컬렉션
 
+    //membership.enabled=true 이면 UsernameLookupAspect 가 없는 username 을 쿼리 없이 걸러낸다
     Member findMemberByUsername(String username); //단건
 
     Optional<Member> findOptionalByUsername(String username); //단건 Optional
@@ -48,11 +126,6 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // 페이징과 정렬 사용 예제
     Page<Member> findByAge(int age, Pageable pageable);
 
-    //스프링 데이터 JPA를 사용한 벌크성 수정 쿼리
-    @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
-
     //JPQL 페치 조인
     @Query("select  m from Member m left join fetch m.team")
     List<Member> findMemberfetchJoin();
@@ -70,7 +143,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findMemberEntityGraph();
 
     //메서드 이름으로 쿼리에서 특히 관리가 편리하다
+    //쿼리 캐시 : 결과 id 목록을 캐시하고 엔티티는 2차 캐시에서 꺼낸다. Member 테이블이 변경(벌크 연산 포함)되면 무효화된다
     @EntityGraph(attributePaths = {"team"})
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Member> findByUsername(String username);
 
     //NamedEntityGraph 사용
@@ -78,6 +153,8 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m")
     List<Member> findMemberNamedEntityGraph();
 
+    //읽기 전용 트랜잭션 -> 복제 DB 라우팅 대상 (이미 트랜잭션이 있으면 그 트랜잭션을 따른다)
+    @Transactional(readOnly = true)
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
@@ -1,9 +1,61 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.Window;
 import study.datajpa.entity.Member;
+import study.datajpa.projection.UsernameOnly;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    //읽기 전용 전체 조회 : 쓰기 트랜잭션 안에서 호출해도 읽기 전용 엔티티로 로딩되어 변경 감지 대상이 아니다 (@ReadOnlySession)
+    List<Member> findAllReadOnly();
+
+    //인터페이스 기반 projection : 행마다 프록시를 만들지 않고 구현 클래스(UsernameOnlyImpl)로 바로 생성한다
+    List<UsernameOnly> findProjectonsByUsername(String username);
+
+    //@ProjectionImplementation 인터페이스 projection : 타입별 조회 컬럼과 생성 방법은 ProjectionMetadata 에 한번만 분석해서 캐시한다
+    <T> List<T> findImplementedProjectionsByUsername(String username, Class<T> type);
+
+    //대량 등록 : BATCH_SIZE 단위로 JDBC 배치 insert 후 영속성 컨텍스트를 비운다
+    long bulkInsert(Stream<Member> members);
+
+    //엔티티 스트림 조회 : forward-only 커서로 읽고 소비된 회원은 바로 준영속 상태로 만든다
+    Stream<Member> streamMembers();
+
+    //DTO 를 스트림으로 읽어서 한 건씩 action 에 넘긴다. 읽기 전용 트랜잭션을 직접 열고 닫으므로 트랜잭션 밖에서 호출해도 된다
+    //샤딩을 켜면 shard 순서대로 실행한다 (streamMemberDto 는 shard 하나의 트랜잭션 안에서만 쓸 수 있다)
+    void forEachMemberDto(Consumer<MemberDto> action);
+
+    //벌크성 수정 : update 한번으로 실행하고 영속성 컨텍스트를 비운다 (@Modifying(clearAutomatically = true) 와 같음)
+    //같은 트랜잭션에서 변경된 회원의 outbox 이벤트를 기록한다
+    int bulkAgePlus(int age);
+
+    //벌크 수정 : chunkSize 단위로 나눠서 update 하고 변경된 회원만 refresh 한다
+    BulkUpdateResult bulkAgePlus(int age, int chunkSize);
+
+    //keyset 페이징 : (username desc, id) 기준으로 cursor 다음 회원을 limit 건 조회한다. cursor 가 null 이면 첫 페이지
+    Window<Member> findWindowByAge(int age, MemberCursor cursor, int limit);
+
+    //페이징 : findByAge / findByUsername(Pageable) 과 같지만 count 쿼리를 동시에 실행하거나 생략하고, 조건별로 잠깐 캐시한다
+    Page<Member> findPageByAge(int age, Pageable pageable);
+
+    Page<Member> findPageByUsername(String username, Pageable pageable);
+
+    //동적 검색 : 조건(username 접두어, 나이 범위, 팀 이름, 등록일 범위) 조합으로 조회한다. 팀은 페치 조인
+    List<Member> search(MemberSearchCondition condition, Pageable pageable);
+
+    //DTO 전용 조회 : JDBC 로 읽어서 행마다 MemberDto 만 만든다 (엔티티 로딩/영속성 컨텍스트 등록 없음)
+    List<MemberDto> findMemberDtoByJdbc();
+
+    List<MemberDto> findMemberDtoByAge(int age);
 }
@@ -1,19 +1,389 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.async.RepositoryExecutor;
+import study.datajpa.outbox.OutboxRecorder;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.Window;
+import study.datajpa.entity.BaseTimeEntity_;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Member_;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.Team_;
+import study.datajpa.projection.ProjectionMetadata;
+import study.datajpa.projection.UsernameOnly;
+import study.datajpa.session.ReadOnlySession;
+import study.datajpa.sharding.ShardContext;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    //application.yml 의 hibernate.jdbc.batch_size 와 맞춘다
+    static final int BATCH_SIZE = 100;
+
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    static final Duration COUNT_CACHE_TTL = Duration.ofSeconds(5);
+
+    //JDBC 로 바로 DTO 를 만드는 조회 : 컬럼 순서(1, 2, 3)로 읽는다
+    private static final String MEMBER_DTO_SQL = "select m.member_id, m.username, t.name" +
+            " from member m left outer join team t on t.team_id = m.team_id";
+    private static final RowMapper<MemberDto> MEMBER_DTO_ROW_MAPPER =
+            (rs, rowNum) -> new MemberDto(rs.getLong(1), rs.getString(2), rs.getString(3));
+
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RepositoryExecutor repositoryExecutor;
+    private final OutboxRecorder outboxRecorder;
+    private final CountCache countCache = new CountCache(COUNT_CACHE_TTL);
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m").getResultList();
     }
 
+    //대량 조회 후 변경하지 않는 경우 : 엔티티 스냅샷과 flush 시점 변경 감지 비용이 없다
+    @Override
+    @ReadOnlySession
+    public List<Member> findAllReadOnly() {
+        return em.createQuery("select m from Member m", Member.class).getResultList();
+    }
+
+    @Override
+    public List<UsernameOnly> findProjectonsByUsername(String username) {
+        return findImplementedProjectionsByUsername(username, UsernameOnly.class);
+    }
+
+    @Override
+    public <T> List<T> findImplementedProjectionsByUsername(String username, Class<T> type) {
+        ProjectionMetadata<T> metadata = ProjectionMetadata.of(type);
+        List<?> rows = em.createQuery(
+                        "select " + metadata.selection("m") + " from Member m where m.username = :username")
+                .setParameter("username", username)
+                .getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(metadata.instantiate(row));
+        }
+        return result;
+    }
+
+    /**
+     * 회원을 BATCH_SIZE 단위로 persist -> flush -> clear 한다.
+     * 시퀀스는 allocationSize 단위로 미리 할당받으므로 row 마다 시퀀스를 조회하지 않고,
+     * flush 시점에 insert 가 JDBC 배치로 묶여서 나간다.
+     * 주의 : clear 를 하므로 같은 트랜잭션에서 이미 조회한 엔티티도 준영속 상태가 된다.
+     * Team 은 미리 저장되어 있어야 한다.
+     */
+    @Override
+    @Transactional
+    public long bulkInsert(Stream<Member> members) {
+        long count = 0;
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            em.persist(iterator.next());
+            if (++count % BATCH_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    /**
+     * 호출하는 쪽에서 트랜잭션을 열고 사용 후 Stream 을 close 해야 한다.
+     * 각 회원은 소비(action)가 끝나면 detach 되므로 영속성 컨텍스트가 커지지 않는다.
+     * 반대로 소비가 끝난 회원의 지연로딩 연관관계는 사용할 수 없다.
+     */
+    @Override
+    public Stream<Member> streamMembers() {
+        ScrollableResults results = em.createQuery("select m from Member m", Member.class)
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(STREAM_FETCH_SIZE)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        Spliterator<Member> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Member> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                Member member = (Member) results.get(0);
+                action.accept(member);
+                em.detach(member);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    @Override
+    public void forEachMemberDto(Consumer<MemberDto> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MemberDto> members = em.createQuery("select new study.datajpa.dto.MemberDto(m.id ,m.username, t.name)" +
+                            " from Member m left join m.team t", MemberDto.class)
+                    .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()) {
+                members.forEach(action);
+            }
+        });
+    }
+
+    /**
+     * age 이상인 회원의 나이를 update 한번으로 1 올린다. 트랜잭션 밖에서 호출하면 새 트랜잭션에서 실행한다.
+     * 대상 행을 select ... for update 로 잠그고 그 id 로 update 하므로 반환 개수와 outbox 에 기록하는 id 가 같다.
+     * 실행 후 영속성 컨텍스트를 비운다.
+     */
+    @Override
+    public int bulkAgePlus(int age) {
+        Integer count = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = PersistenceContextSupport.lockMemberIdsByAge(em, age, null);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int result = em.createQuery("update versioned Member m set m.age = m.age + 1 where m.id in :ids and m.age >= :age")
+                    .setParameter("ids", ids)
+                    .setParameter("age", age)
+                    .executeUpdate();
+            em.clear();
+            outboxRecorder.recordBulkUpdate(em, "Member", ids, "age = age + 1");
+            return result;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * age 이상인 회원의 나이를 1 올린다.
+     * 대상 id 를 먼저 조회(스냅샷)하고 chunkSize 개씩 id 로 update 한다.
+     * chunk 마다 스냅샷 이후에도 아직 조건을 만족하는 행만 잠그고 그 행만 update 하므로
+     * 반환 개수, affectedIds, outbox 에 기록하는 id 가 모두 같다.
+     * 트랜잭션 밖에서 호출하면 chunk 마다 따로 커밋하므로 락을 오래 잡지 않는다. 트랜잭션 안이면 그 트랜잭션에 참여한다.
+     * 영속성 컨텍스트를 clear 하지 않고 관리 중인 대상 회원만 refresh 하므로 나머지 엔티티는 그대로 쓸 수 있다.
+     * (2차 캐시는 JPQL 벌크 연산이므로 하이버네이트가 Member region 을 무효화한다)
+     * 하이버네이트 이벤트가 발생하지 않으므로 outbox 이벤트는 chunk 마다 직접 기록한다.
+     * update versioned 로 버전도 올려서 동시에 수정 중인 트랜잭션이 덮어쓰지 못하게 한다.
+     */
+    @Override
+    public BulkUpdateResult bulkAgePlus(int age, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 0보다 커야 합니다. chunkSize=" + chunkSize);
+        }
+        List<Long> ids = em.createQuery("select m.id from Member m where m.age >= :age order by m.id", Long.class)
+                .setParameter("age", age)
+                .getResultList();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> affectedIds = new ArrayList<>(ids.size());
+        int updatedCount = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Integer count = transactionTemplate.execute(status -> {
+                List<Long> locked = PersistenceContextSupport.lockMemberIdsByAge(em, age, chunk);
+                if (locked.isEmpty()) {
+                    return 0;
+                }
+                int result = em.createQuery("update versioned Member m set m.age = m.age + 1 where m.id in :ids and m.age >= :age")
+                        .setParameter("ids", locked)
+                        .setParameter("age", age)
+                        .executeUpdate();
+                PersistenceContextSupport.refreshManaged(em, Member.class, locked);
+                outboxRecorder.recordBulkUpdate(em, "Member", locked, "age = age + 1");
+                affectedIds.addAll(locked);
+                return result;
+            });
+            updatedCount += count == null ? 0 : count;
+        }
+        return new BulkUpdateResult(affectedIds, updatedCount);
+    }
+
+    @Override
+    public Window<Member> findWindowByAge(int age, MemberCursor cursor, int limit) {
+        return MemberKeysetQuery.findWindowByAge(em, age, cursor, limit);
+    }
+
+    @Override
+    public Page<Member> findPageByAge(int age, Pageable pageable) {
+        return findPage("m.age = :value", "age:" + age, age, pageable);
+    }
+
+    @Override
+    public Page<Member> findPageByUsername(String username, Pageable pageable) {
+        //null 과 문자열 "null" 의 키가 같지 않도록 값은 따옴표로 감싸고 null 은 따로 표시한다
+        return findPage("m.username = :value", "username=" + (username == null ? "\u0000null" : "'" + username + "'"),
+                username, pageable);
+    }
+
+    /**
+     * 트랜잭션 밖에서 호출하면 count 쿼리를 repositoryExecutor 에서 다른 커넥션으로 동시에 실행한다.
+     * 트랜잭션 안이면 같은 커넥션에서 차례로 실행한다. (커밋 전 변경 내용도 count 에 보여야 하므로)
+     * count 는 조건별로 COUNT_CACHE_TTL 동안 캐시하고,
+     * 첫 페이지인데 content 가 pageSize 보다 적거나 마지막 페이지면 content 로 전체 개수를 계산하고 count 결과는 버린다.
+     */
+    private Page<Member> findPage(String predicate, String countKey, Object value, Pageable pageable) {
+        //팀을 함께 조회해서 트랜잭션 밖(준영속)에서도 팀 이름을 쓸 수 있게 한다
+        String jpql = "select m from Member m left join fetch m.team where " + predicate;
+        //샤딩을 켜면 shard 마다 개수가 다르다
+        int shard = ShardContext.current();
+        String shardCountKey = shard + ":" + countKey;
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(em.createQuery(jpql, Member.class)
+                    .setParameter("value", value)
+                    .getResultList());
+        }
+
+        LongSupplier count = () -> countCache.get(shardCountKey, () -> em.createQuery(
+                        "select count(m) from Member m where " + predicate, Long.class)
+                .setParameter("value", value)
+                .getSingleResult());
+        CompletableFuture<Long> concurrentCount = null;
+        if (!TransactionSynchronizationManager.isActualTransactionActive() && !countCache.contains(shardCountKey)) {
+            concurrentCount = CompletableFuture.supplyAsync(
+                    () -> ShardContext.callInShard(shard, count::getAsLong), repositoryExecutor);
+        }
+
+        List<Member> content = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), Member.class)
+                .setParameter("value", value)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        if (concurrentCount == null) {
+            return PageableExecutionUtils.getPage(content, pageable, count);
+        }
+        CompletableFuture<Long> total = concurrentCount;
+        Page<Member> page = PageableExecutionUtils.getPage(content, pageable, () -> join(total));
+        total.cancel(false);
+        return page;
+    }
+
+    private static long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 조건 조합에 맞춰 Criteria 쿼리를 만든다. 팀은 항상 페치 조인한다.
+     * literal_handling_mode=bind 이므로 값이 달라도 조건 조합(모양)이 같으면 같은 JPQL 이 되어
+     * 하이버네이트 쿼리 플랜 캐시와 JDBC statement 캐시를 재사용한다.
+     */
+    @Override
+    public List<Member> search(MemberSearchCondition condition, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = cb.createQuery(Member.class);
+        Root<Member> m = query.from(Member.class);
+        @SuppressWarnings("unchecked")
+        Join<Member, Team> t = (Join<Member, Team>) m.fetch(Member_.team, JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (condition.getUsernamePrefix() != null) {
+            predicates.add(cb.like(m.get(Member_.username), escapeLike(condition.getUsernamePrefix()) + "%", '\\'));
+        }
+        if (condition.getAgeGoe() != null) {
+            predicates.add(cb.ge(m.get(Member_.age), condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            predicates.add(cb.le(m.get(Member_.age), condition.getAgeLoe()));
+        }
+        if (condition.getTeamName() != null) {
+            predicates.add(cb.equal(t.get(Team_.name), condition.getTeamName()));
+        }
+        if (condition.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(m.get(BaseTimeEntity_.created), condition.getCreatedFrom()));
+        }
+        if (condition.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(m.get(BaseTimeEntity_.created), condition.getCreatedTo()));
+        }
+        query.select(m)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), m, cb));
+
+        TypedQuery<Member> typedQuery = em.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    /**
+     * 엔티티/프록시를 만들지 않고 영속성 컨텍스트에도 올리지 않는다. 결과 행마다 MemberDto 하나만 만든다.
+     * 쓰기 트랜잭션 안이면 JPQL 과 같이 먼저 flush 해서 아직 반영되지 않은 변경도 보이게 한다.
+     */
+    @Override
+    public List<MemberDto> findMemberDtoByJdbc() {
+        flushIfWritable();
+        return jdbcTemplate.query(MEMBER_DTO_SQL, MEMBER_DTO_ROW_MAPPER);
+    }
+
+    @Override
+    public List<MemberDto> findMemberDtoByAge(int age) {
+        flushIfWritable();
+        return jdbcTemplate.query(MEMBER_DTO_SQL + " where m.age = ?", MEMBER_DTO_ROW_MAPPER, age);
+    }
+
+    private void flushIfWritable() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+    }
 }
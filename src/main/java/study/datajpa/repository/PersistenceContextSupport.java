@@ -0,0 +1,59 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 벌크 연산 후 영속성 컨텍스트 전체를 clear 하지 않고 변경된 엔티티만 다시 읽기 위한 지원 클래스
+ * 벌크 연산 대상 행을 먼저 잠가서 update 되는 행과 기록하는 id 를 맞추는 데도 쓴다
+ */
+class PersistenceContextSupport {
+
+    private PersistenceContextSupport() {
+    }
+
+    //ids 중 현재 영속성 컨텍스트가 관리하는 엔티티만 DB 값으로 refresh 한다
+    static void refreshManaged(EntityManager em, Class<?> entityType, Collection<? extends Serializable> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        for (Serializable id : ids) {
+            Object entity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                em.refresh(entity);
+            }
+        }
+    }
+
+    //age 이상인 회원 행을 select ... for update 로 잠그고 id 를 돌려준다. ids 가 null 이 아니면 그 중에서만 찾는다
+    //트랜잭션이 끝날 때까지 다른 트랜잭션이 나이를 바꿀 수 없으므로 이어서 실행하는 update 대상과 같다
+    static List<Long> lockMemberIdsByAge(EntityManager em, int age, List<Long> ids) {
+        String sql = "select member_id from member where age >= :age";
+        if (ids != null) {
+            sql += " and member_id in (:ids)";
+        }
+        //member 테이블을 쓰는 쿼리임을 알려서 아직 flush 되지 않은 회원 변경을 먼저 반영한다
+        NativeQuery<?> query = em.createNativeQuery(sql + " order by member_id for update")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Member.class)
+                .setParameter("age", age);
+        if (ids != null) {
+            query.setParameterList("ids", ids);
+        }
+        List<?> result = query.getResultList();
+        List<Long> locked = new ArrayList<>(result.size());
+        for (Object id : result) {
+            locked.add(((Number) id).longValue());
+        }
+        return locked;
+    }
+}
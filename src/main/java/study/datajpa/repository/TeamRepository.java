@@ -1,7 +1,22 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.TeamMembersDto;
 import study.datajpa.entity.Team;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    //팀별 회원 수와 회원 이름 조회
+    //members 는 @BatchSize 로 IN 쿼리 한번에 초기화되므로 팀 수와 관계없이 쿼리가 일정하다
+    //지연로딩을 하므로 읽기 전용 트랜잭션 안에서 DTO 까지 만든다
+    @Transactional(readOnly = true)
+    default List<TeamMembersDto> findTeamMembers() {
+        return findAll().stream()
+                .map(TeamMembersDto::new)
+                .collect(Collectors.toList());
+    }
 }
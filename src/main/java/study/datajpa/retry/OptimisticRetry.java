@@ -0,0 +1,26 @@
+package study.datajpa.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(OptimisticLockingFailureException)이 나면 메서드를 다시 실행한다.
+ * 재시도 사이에는 지수 backoff 에 jitter 를 더해서 기다린다. 0 ~ min(maxBackoffMillis, backoffMillis * 2^(시도-1))
+ * 트랜잭션 밖에서 호출될 때만 재시도한다. (@Transactional 과 같이 쓰면 재시도가 트랜잭션을 감싼다)
+ * 이미 진행 중인 트랜잭션에 참여한 경우는 그 트랜잭션이 롤백되어야 하므로 재시도하지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OptimisticRetry {
+
+    //첫 실행을 포함한 최대 실행 횟수
+    int maxAttempts() default 5;
+
+    long backoffMillis() default 10;
+
+    long maxBackoffMillis() default 500;
+}
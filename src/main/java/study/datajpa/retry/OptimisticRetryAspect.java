@@ -0,0 +1,57 @@
+package study.datajpa.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @OptimisticRetry 메서드를 재시도한다. 트랜잭션 어드바이스보다 먼저(바깥에서) 실행되도록 순서를 앞에 둔다.
+ * 재시도 수는 optimistic.retries, 재시도 후에도 실패한 수는 optimistic.failures 로 기록한다. (method 태그)
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class OptimisticRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(optimisticRetry)")
+    public Object retry(ProceedingJoinPoint joinPoint, OptimisticRetry optimisticRetry) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= optimisticRetry.maxAttempts()) {
+                    meterRegistry.counter("optimistic.failures", "method", method).increment();
+                    throw e;
+                }
+                meterRegistry.counter("optimistic.retries", "method", method).increment();
+                log.debug("optimistic lock conflict on {}, retry {}/{}", method, attempt, optimisticRetry.maxAttempts() - 1);
+                Thread.sleep(backoff(optimisticRetry, attempt));
+            }
+        }
+    }
+
+    //full jitter
+    private long backoff(OptimisticRetry optimisticRetry, int attempt) {
+        long ceiling = Math.min(optimisticRetry.maxBackoffMillis(),
+                optimisticRetry.backoffMillis() << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.retry.OptimisticRetry;
+import study.datajpa.sharding.ShardKey;
+
+/**
+ * 회원 수정. 비관적 락 없이 @Version 으로 충돌을 감지하고 충돌하면 처음부터(새 트랜잭션에서) 다시 실행한다.
+ * 샤딩을 켜면 회원 id 의 shard 에서 실행한다. (@ShardKey) 다른 shard 의 팀으로는 옮길 수 없다
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+
+    @OptimisticRetry
+    @Transactional
+    public Member changeAge(@ShardKey Long memberId, int age) {
+        Member member = findMember(memberId);
+        member.setAge(age);
+        return member;
+    }
+
+    @OptimisticRetry
+    @Transactional
+    public Member addAge(@ShardKey Long memberId, int delta) {
+        Member member = findMember(memberId);
+        member.setAge(member.getAge() + delta);
+        return member;
+    }
+
+    @OptimisticRetry
+    @Transactional
+    public Member changeTeam(@ShardKey Long memberId, Long teamId) {
+        Member member = findMember(memberId);
+        Team team = teamRepository.findById(teamId)
+                .orElseThrow(() -> new IllegalArgumentException("팀이 없습니다. teamId=" + teamId));
+        member.changeTeam(team);
+        return member;
+    }
+
+    private Member findMember(Long memberId) {
+        return memberRepository.findById(memberId)
+                .orElseThrow(() -> new IllegalArgumentException("회원이 없습니다. memberId=" + memberId));
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.session;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메서드 안에서 조회한 엔티티를 읽기 전용으로 로딩한다. (스냅샷을 만들지 않고 flush 때 변경 감지도 하지 않는다)
+ * 트랜잭션이 없으면 읽기 전용 트랜잭션을 열고, 이미 쓰기 트랜잭션이 있으면 그 세션을 메서드 실행 동안만 읽기 전용 기본값으로 바꾼다.
+ * 읽기 전용으로 로딩된 엔티티는 메서드가 끝난 뒤에도 수정 내용이 DB 에 반영되지 않는다.
+ * 스프링 빈(클래스)의 메서드나 클래스에 붙인다. (ReadOnlySessionAspect)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlySession {
+}
@@ -0,0 +1,63 @@
+package study.datajpa.session;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+@Aspect
+@Component
+public class ReadOnlySessionAspect {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadOnlySessionAspect(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Around("@annotation(study.datajpa.session.ReadOnlySession) || @within(study.datajpa.session.ReadOnlySession)")
+    public Object readOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            //새 읽기 전용 트랜잭션 : HibernateJpaDialect 가 세션을 defaultReadOnly + FlushMode.MANUAL 로 연다
+            return proceedInReadOnlyTransaction(joinPoint);
+        }
+        Session session = em.unwrap(Session.class);
+        boolean previous = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            session.setDefaultReadOnly(previous);
+        }
+    }
+
+    private Object proceedInReadOnlyTransaction(ProceedingJoinPoint joinPoint) throws Throwable {
+        Throwable[] thrown = new Throwable[1];
+        Object result = readOnlyTransaction.execute(status -> {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                //checked 예외는 롤백하지 않고 그대로 던진다 (@Transactional 과 같은 규칙)
+                thrown[0] = e;
+                return null;
+            }
+        });
+        if (thrown[0] != null) {
+            throw thrown[0];
+        }
+        return result;
+    }
+}
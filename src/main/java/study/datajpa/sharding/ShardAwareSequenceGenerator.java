@@ -0,0 +1,65 @@
+package study.datajpa.sharding;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 샤딩을 켜면 (shard 시퀀스 값 << SHARD_BITS) | shard 번호 를 id 로 만든다.
+ * 각 shard 의 시퀀스는 그 shard 안에서만 유일하므로 하위 비트의 shard 번호로 shard 간 충돌을 막고,
+ * id 만으로 저장된 shard 를 알 수 있다. (ShardRouter.shardOf)
+ * pooled optimizer 는 shard 마다 따로 둔다. 하나를 공유하면 다른 shard 시퀀스에서 받은 값 구간을 쓰게 된다.
+ * 샤딩을 끄면 SequenceStyleGenerator 와 같다.
+ */
+public class ShardAwareSequenceGenerator extends SequenceStyleGenerator {
+
+    //ShardingConfig 가 하이버네이트 설정으로 넣는다
+    public static final String ENABLED_SETTING = "study.datajpa.sharding.enabled";
+
+    public static final int SHARD_BITS = 6;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private boolean sharded;
+    private String optimizerType;
+    private Class<?> returnedClass;
+    private int incrementSize;
+    private long initialValue;
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        sharded = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ENABLED_SETTING, StandardConverters.BOOLEAN, false);
+        optimizerType = getOptimizer().getClass().getName();
+        returnedClass = type.getReturnedClass();
+        incrementSize = getOptimizer().getIncrementSize();
+        initialValue = ConfigurationHelper.getInt(INITIAL_PARAM, params, -1);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (!sharded) {
+            return super.generate(session, object);
+        }
+        //세션의 커넥션도 같은 ShardContext 로 정해졌으므로 시퀀스는 이 shard 에서 조회된다
+        int shard = ShardContext.current();
+        Optimizer optimizer = optimizers.computeIfAbsent(shard,
+                s -> OptimizerFactory.buildOptimizer(optimizerType, returnedClass, incrementSize, initialValue));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return (value << SHARD_BITS) | shard;
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드가 사용할 shard 번호. ShardRoutingDataSource 와 ShardAwareSequenceGenerator 가 읽는다.
+ * 지정하지 않으면 DEFAULT_SHARD 를 쓴다.
+ * 커넥션은 트랜잭션을 시작할 때 정해지므로 트랜잭션 밖에서 shard 를 지정해야 한다.
+ */
+public final class ShardContext {
+
+    public static final int DEFAULT_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? DEFAULT_SHARD : shard;
+    }
+
+    //callInShard 안에서 실행 중인지. 아니면 ShardRoutingAspect 가 리포지토리 호출의 shard 를 정한다
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    public static <T> T callInShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        //진행 중인 트랜잭션의 커넥션은 바뀌지 않으므로 다른 shard 로 바꿀 수 없다 (지정하지 않은 경우는 기본 shard 트랜잭션)
+        if (TransactionSynchronizationManager.isActualTransactionActive() && current() != shard) {
+            throw new IllegalStateException("shard " + current() + " 트랜잭션 안에서 shard " + shard + " 를 사용할 수 없습니다.");
+        }
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void runInShard(int shard, Runnable work) {
+        callInShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
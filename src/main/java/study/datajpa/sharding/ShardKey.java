@@ -0,0 +1,17 @@
+package study.datajpa.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔티티 id 파라미터. sharding.enabled=true 이면 ShardKeyAspect 가 이 id 의 shard 를 메서드 실행 전에 지정한다.
+ * 트랜잭션(@Transactional)보다 바깥에서 지정하므로 메서드 안의 리포지토리 호출은 모두 이 shard 에서 실행된다.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardKey {
+}
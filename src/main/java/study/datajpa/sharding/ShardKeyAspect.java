@@ -0,0 +1,56 @@
+package study.datajpa.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * @ShardKey 파라미터(id)의 shard 를 지정하고 메서드를 실행한다.
+ * 트랜잭션이 시작될 때 커넥션(shard)이 정해지므로 트랜잭션 어드바이스와 @OptimisticRetry 보다 바깥에서 실행되도록 순서를 앞에 둔다.
+ * 다른 shard 트랜잭션 안에서 호출하면 ShardContext 가 예외를 던진다.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class ShardKeyAspect {
+
+    private final ShardRouter router;
+
+    public ShardKeyAspect(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Around("execution(* *(.., @study.datajpa.sharding.ShardKey (*), ..))")
+    public Object bind(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long id = shardKey(joinPoint);
+        if (id == null) {
+            throw new IllegalArgumentException("shard key(id)가 없습니다. " + joinPoint.getSignature().toShortString());
+        }
+        return ShardContext.callInShard(router.shardOf(id), () -> {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        });
+    }
+
+    private static Long shardKey(ProceedingJoinPoint joinPoint) {
+        Annotation[][] annotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return (Long) joinPoint.getArgs()[i];
+                }
+            }
+        }
+        throw new IllegalStateException("@ShardKey 파라미터가 없습니다. " + joinPoint.getSignature().toShortString());
+    }
+}
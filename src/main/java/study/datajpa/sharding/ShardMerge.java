@@ -0,0 +1,152 @@
+package study.datajpa.sharding;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.dto.Window;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * shard 별로 정렬된 결과와 집계 결과를 합친다.
+ */
+final class ShardMerge {
+
+    private ShardMerge() {
+    }
+
+    //shard 결과는 각각 comparator 순서로 정렬되어 있어야 한다. 합친 순서에서 offset 부터 limit 개
+    static <T> List<T> mergeSorted(List<List<T>> sortedResults, Comparator<? super T> comparator, long offset, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.value, b.value));
+        for (List<T> result : sortedResults) {
+            Iterator<T> iterator = result.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>(limit);
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head<T> head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(head.value);
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sort 의 프로퍼티 순서대로 비교한다.
+     * shard 쿼리의 null 정렬과 같아야 하므로 null 은 방향과 관계없이 앞에 둔다.
+     * (샤딩을 켜면 hibernate.order_by.default_null_ordering=first, ShardingConfig)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Comparator<T> comparator(Sort sort) {
+        checkNullHandling(sort);
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Comparable> direction = order.isAscending()
+                    ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            Comparator<T> byProperty = Comparator.comparing(
+                    value -> (Comparable) new BeanWrapperImpl(value).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(direction));
+            comparator = comparator.thenComparing(byProperty);
+        }
+        return comparator;
+    }
+
+    //Criteria 쿼리(findAll(Pageable) 등)는 Sort 의 null 처리를 SQL 에 넣지 않으므로 shard 결과 순서와 맞출 수 없다
+    static void checkNullHandling(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                throw new IllegalArgumentException("shard 병합 정렬은 null 처리를 지정할 수 없습니다. (항상 null 이 먼저) " + order);
+            }
+        }
+    }
+
+    //팀과 소속 회원은 같은 shard 에 있으므로 팀별 집계는 이어 붙여서 팀 이름 순으로 정렬한다 (findTeamStats 의 order by t.name)
+    static List<TeamStatsDto> mergeTeamStats(List<List<TeamStatsDto>> results) {
+        return results.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(TeamStatsDto::getTeamName, Comparator.nullsFirst(Comparator.<String>naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    //나이별 회원 수를 더한다. 나이 순서 (findAgeHistogram 의 order by m.age)
+    static List<AgeCountDto> mergeAgeHistogram(List<List<AgeCountDto>> results) {
+        Map<Integer, Long> counts = new TreeMap<>();
+        results.forEach(result -> result.forEach(dto -> counts.merge(dto.getAge(), dto.getCount(), Long::sum)));
+        return counts.entrySet().stream()
+                .map(entry -> new AgeCountDto(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    //회원 수는 합, 평균은 회원 수로 가중 평균, 최소/최대는 회원이 있는 shard 중에서
+    static AgeStatsDto mergeAgeStats(List<AgeStatsDto> results) {
+        long count = 0;
+        double ageSum = 0;
+        Integer min = null;
+        Integer max = null;
+        for (AgeStatsDto stats : results) {
+            if (stats.getMemberCount() == 0) {
+                continue;
+            }
+            count += stats.getMemberCount();
+            ageSum += stats.getAverageAge() * stats.getMemberCount();
+            min = min == null ? stats.getMinAge() : Math.min(min, stats.getMinAge());
+            max = max == null ? stats.getMaxAge() : Math.max(max, stats.getMaxAge());
+        }
+        return new AgeStatsDto(count, count == 0 ? null : ageSum / count, min, max);
+    }
+
+    static BulkUpdateResult mergeBulkUpdates(List<BulkUpdateResult> results) {
+        List<Long> affectedIds = new ArrayList<>();
+        int updatedCount = 0;
+        for (BulkUpdateResult result : results) {
+            affectedIds.addAll(result.getAffectedIds());
+            updatedCount += result.getUpdatedCount();
+        }
+        return new BulkUpdateResult(affectedIds, updatedCount);
+    }
+
+    /**
+     * keyset 페이징 결과를 합친다. shard 마다 같은 커서로 limit 건씩 조회한 결과를 (username desc nulls last, id asc) 로 합치고 limit 건을 남긴다.
+     * 어느 shard 든 다음 페이지가 있거나 합친 결과가 limit 보다 많으면 마지막 회원이 다음 커서가 된다.
+     */
+    static Window<Member> mergeWindows(List<Window<Member>> windows, int limit) {
+        Comparator<Member> order = Comparator.comparing(Member::getUsername, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+                .thenComparing(Member::getId);
+        List<Member> merged = mergeSorted(windows.stream().map(Window::getContent).collect(Collectors.toList()),
+                order, 0, limit + 1);
+        boolean hasNext = merged.size() > limit || windows.stream().anyMatch(Window::hasNext);
+        List<Member> content = merged.subList(0, Math.min(limit, merged.size()));
+        return new Window<>(content, hasNext && !content.isEmpty() ? MemberCursor.of(content.get(content.size() - 1)) : null);
+    }
+
+    private static class Head<T> {
+        private final T value;
+        private final Iterator<T> rest;
+
+        private Head(T value, Iterator<T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+}
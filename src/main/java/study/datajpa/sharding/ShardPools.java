@@ -0,0 +1,20 @@
+package study.datajpa.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class ShardPools implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+    private final ShardRoutingDataSource routing;
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
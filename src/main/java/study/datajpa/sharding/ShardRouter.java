@@ -0,0 +1,60 @@
+package study.datajpa.sharding;
+
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/**
+ * 엔티티가 저장될 shard 를 정한다.
+ * 저장된 엔티티는 id 의 하위 비트, 새 팀은 팀 이름(tenant key)의 해시, 새 회원은 소속 팀의 shard 를 쓴다.
+ * 팀이 없는 회원은 username 해시로 정한다.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1 || shardCount > ShardAwareSequenceGenerator.MAX_SHARDS) {
+            throw new IllegalArgumentException("shard 는 1 ~ " + ShardAwareSequenceGenerator.MAX_SHARDS + " 개여야 합니다. " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        int shard = (int) (id & (ShardAwareSequenceGenerator.MAX_SHARDS - 1));
+        if (shard >= shardCount) {
+            throw new IllegalArgumentException("id 의 shard 가 없습니다. id=" + id + ", shard=" + shard);
+        }
+        return shard;
+    }
+
+    public int shardOfTenant(String tenant) {
+        if (tenant == null) {
+            throw new IllegalArgumentException("tenant key 가 없어서 shard 를 정할 수 없습니다. (팀 이름 또는 팀이 없는 회원의 username)");
+        }
+        return Math.floorMod(tenant.hashCode(), shardCount);
+    }
+
+    public int shardOf(Team team) {
+        return team.getId() != null ? shardOf(team.getId()) : shardOfTenant(team.getName());
+    }
+
+    public int shardOf(Member member) {
+        Team team = member.getTeam();
+        if (team != null && team.getId() == null) {
+            throw new IllegalArgumentException("팀을 먼저 저장해야 합니다. team=" + team.getName());
+        }
+        if (member.getId() == null) {
+            return team != null ? shardOf(team.getId()) : shardOfTenant(member.getUsername());
+        }
+        int shard = shardOf(member.getId());
+        //회원과 팀은 같은 shard 에 있어야 한다 (team_id 외래키)
+        if (team != null && shardOf(team.getId()) != shard) {
+            throw new IllegalArgumentException("다른 shard 의 팀으로 옮길 수 없습니다. member=" + member.getId());
+        }
+        return shard;
+    }
+}
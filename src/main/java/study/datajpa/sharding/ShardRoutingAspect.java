@@ -0,0 +1,248 @@
+package study.datajpa.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.dto.Window;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * MemberRepository / TeamRepository 호출의 shard 를 정한다.
+ * - save, saveAll, delete, deleteAll(Iterable), deleteAllInBatch(Iterable) : 엔티티의 shard (ShardRouter)
+ * - findById, existsById, deleteById 등 *ById(Long), findAllById, deleteAllById : id 의 shard
+ * - 목록 조회 : 모든 shard 에서 조회해서 이어 붙이거나 (정렬/페이징이 있으면) 정렬 순서로 합친다
+ * - 단건 조회(findMemberByUsername 등) : 처음 찾은 shard 의 결과
+ * - 집계(count, findTeamStats, findAgeHistogram, findAgeStats)와 벌크 수정(bulkAgePlus) : 모든 shard 에서 실행해서 더한다
+ * - forEachMemberDto : 호출한 스레드에서 shard 순서대로 실행한다
+ * 그 밖의 메서드(스트림 조회, bulkInsert, @Async 조회, Example 조회 등)는 ShardContext 로 shard 를 지정해야 하고,
+ * 지정하지 않고 호출하면 기본 shard 만 보고 틀린 결과를 내지 않도록 IllegalStateException 을 던진다.
+ * ShardContext 로 shard 를 지정한 호출은 그대로 실행한다. (id 가 다른 shard 면 예외)
+ * 라우팅은 트랜잭션을 새로 열어야 하므로 트랜잭션 밖에서 호출해야 한다. (기본 shard 트랜잭션 안에서 다른 shard 로 가면 예외)
+ */
+@Aspect
+public class ShardRoutingAspect {
+
+    private final ShardTemplate shards;
+
+    public ShardRoutingAspect(ShardTemplate shards) {
+        this.shards = shards;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Around("target(study.datajpa.repository.MemberRepository) || target(study.datajpa.repository.TeamRepository)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        //toString 등 Object 메서드는 DB 를 쓰지 않는다
+        if (((MethodSignature) joinPoint.getSignature()).getMethod().getDeclaringClass() == Object.class) {
+            return joinPoint.proceed();
+        }
+        String name = joinPoint.getSignature().getName();
+        Object[] args = joinPoint.getArgs();
+        ShardRouter router = shards.router();
+
+        if (ShardContext.isBound()) {
+            if (args.length == 1 && args[0] instanceof Long && name.endsWith("ById")
+                    && router.shardOf((Long) args[0]) != ShardContext.current()) {
+                throw new IllegalStateException("shard " + ShardContext.current() + " 에서 다른 shard 의 id 를 사용할 수 없습니다. id=" + args[0]);
+            }
+            return joinPoint.proceed();
+        }
+
+        if (args.length == 1 && isEntity(args[0]) && (name.startsWith("save") || name.equals("delete"))) {
+            return shards.inShard(shardOf(router, args[0]), false, () -> proceed(joinPoint, args));
+        }
+        if (args.length == 1 && args[0] instanceof Long && name.endsWith("ById")) {
+            boolean readOnly = !name.startsWith("delete");
+            return shards.inShard(router.shardOf((Long) args[0]), readOnly, () -> proceed(joinPoint, args));
+        }
+        if (args.length == 1 && args[0] instanceof Iterable) {
+            Iterable<?> items = (Iterable<?>) args[0];
+            switch (name) {
+                case "saveAll":
+                case "saveAllAndFlush":
+                    return saveAll(joinPoint, router, items);
+                case "deleteAll":
+                case "deleteAllInBatch":
+                    forEachShard(joinPoint, items, false, entity -> shardOf(router, entity));
+                    return null;
+                case "deleteAllById":
+                case "deleteAllByIdInBatch":
+                    forEachShard(joinPoint, items, false, id -> router.shardOf((Long) id));
+                    return null;
+                case "findAllById":
+                    return forEachShard(joinPoint, items, true, id -> router.shardOf((Long) id));
+                default:
+            }
+        }
+        switch (name) {
+            case "findAll":
+                if (args.length == 0) {
+                    return shards.concat(() -> (Collection<Object>) proceed(joinPoint, args));
+                }
+                if (args.length == 1 && args[0] instanceof Sort) {
+                    return shards.sorted((Sort) args[0], sort -> (List<Object>) proceed(joinPoint, sort));
+                }
+                if (args.length == 1 && args[0] instanceof Pageable) {
+                    return shards.page((Pageable) args[0], pageable -> (Page<Object>) proceed(joinPoint, pageable));
+                }
+                break;
+            case "findByAge":
+            case "findByUsername":
+            case "findPageByAge":
+            case "findPageByUsername":
+                if (args.length == 2 && args[1] instanceof Pageable) {
+                    return shards.page((Pageable) args[1],
+                            pageable -> (Page<Object>) proceed(joinPoint, args[0], pageable));
+                }
+                if (name.equals("findByUsername") && args.length == 1) {
+                    return shards.concat(() -> (Collection<Object>) proceed(joinPoint, args));
+                }
+                break;
+            case "search":
+                return shards.list((Pageable) args[1], pageable -> (List<Object>) proceed(joinPoint, args[0], pageable));
+            case "findWindowByAge":
+                return ShardMerge.mergeWindows(
+                        shards.scatter(true, () -> (Window<Member>) proceed(joinPoint, args)), (Integer) args[2]);
+            case "count":
+                if (args.length == 0) {
+                    return shards.sum(() -> (Long) proceed(joinPoint, args));
+                }
+                break;
+            case "findUser":
+            case "findByUsernameAndAgeGreaterThan":
+            case "findUsernameList":
+            case "findMemberDto":
+            case "findMemberDtoByJdbc":
+            case "findMemberDtoByAge":
+            case "findTeamMembers":
+            case "findByUsernameIn":
+            case "findByNames":
+            case "findListByUsername":
+            case "findMemberfetchJoin":
+            case "findMemberEntityGraph":
+            case "findMemberNamedEntityGraph":
+            case "findMemberCustom":
+            case "findAllReadOnly":
+            case "findProjectonsByUsername":
+            case "findProjectionsByUsername":
+            case "findImplementedProjectionsByUsername":
+            case "findProjectedByUsername":
+                return shards.concat(() -> (Collection<Object>) proceed(joinPoint, args));
+            case "findOptionalByUsername":
+                return shards.findFirst(() -> (Optional<Object>) proceed(joinPoint, args));
+            case "findMemberByUsername":
+            case "findReadOnlyByUsername":
+            case "findByNativeQuery":
+                return shards.findFirst(() -> Optional.ofNullable(proceed(joinPoint, args))).orElse(null);
+            case "findTeamStats":
+                return ShardMerge.mergeTeamStats(shards.scatter(true, () -> (List<TeamStatsDto>) proceed(joinPoint, args)));
+            case "findAgeHistogram":
+                return ShardMerge.mergeAgeHistogram(shards.scatter(true, () -> (List<AgeCountDto>) proceed(joinPoint, args)));
+            case "findAgeStats":
+                return ShardMerge.mergeAgeStats(shards.scatter(true, () -> (AgeStatsDto) proceed(joinPoint, args)));
+            case "forEachMemberDto":
+                //action 이 응답을 쓰는 경우가 있으므로 호출한 스레드에서 하나씩 실행한다
+                shards.forEachShard(true, () -> proceed(joinPoint, args));
+                return null;
+            case "bulkAgePlus":
+                if (args.length == 1) {
+                    return shards.scatter(false, () -> (Integer) proceed(joinPoint, args)).stream()
+                            .mapToInt(Integer::intValue)
+                            .sum();
+                }
+                //chunk 마다 트랜잭션을 직접 연다
+                return ShardMerge.mergeBulkUpdates(
+                        shards.scatterWithoutTransaction(() -> (BulkUpdateResult) proceed(joinPoint, args)));
+            case "deleteAll":
+            case "deleteAllInBatch":
+                if (args.length == 0) {
+                    shards.scatter(false, () -> proceed(joinPoint, args));
+                    return null;
+                }
+                break;
+            default:
+        }
+        throw new IllegalStateException("sharding.enabled=true 이면 " + joinPoint.getSignature().toShortString()
+                + " 는 ShardContext 로 shard 를 지정해서 호출해야 합니다.");
+    }
+
+    //shard 별로 나눠서 저장하고 입력 순서대로 돌려준다. shard 마다 따로 커밋된다
+    private List<Object> saveAll(ProceedingJoinPoint joinPoint, ShardRouter router, Iterable<?> entities) {
+        List<Object> input = new ArrayList<>();
+        entities.forEach(input::add);
+        Map<Integer, List<Object>> byShard = groupByShard(input, entity -> shardOf(router, entity));
+        Map<Object, Object> saved = new IdentityHashMap<>();
+        byShard.forEach((shard, group) -> {
+            List<?> result = (List<?>) shards.inShard(shard, false, () -> proceed(joinPoint, group));
+            for (int i = 0; i < group.size(); i++) {
+                saved.put(group.get(i), result.get(i));
+            }
+        });
+        List<Object> result = new ArrayList<>(input.size());
+        input.forEach(entity -> result.add(saved.get(entity)));
+        return result;
+    }
+
+    //shard 별로 나눠서 차례로 실행하고 결과 목록을 이어 붙인다. shard 마다 따로 커밋된다
+    private List<Object> forEachShard(ProceedingJoinPoint joinPoint, Iterable<?> items, boolean readOnly,
+                                      ToIntFunction<Object> shardOf) {
+        List<Object> result = new ArrayList<>();
+        groupByShard(items, shardOf).forEach((shard, group) -> {
+            Object shardResult = shards.inShard(shard, readOnly, () -> proceed(joinPoint, group));
+            if (shardResult instanceof Collection) {
+                result.addAll((Collection<?>) shardResult);
+            }
+        });
+        return result;
+    }
+
+    private static Map<Integer, List<Object>> groupByShard(Iterable<?> items, ToIntFunction<Object> shardOf) {
+        Map<Integer, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object item : items) {
+            byShard.computeIfAbsent(shardOf.applyAsInt(item), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    private static boolean isEntity(Object arg) {
+        return arg instanceof Member || arg instanceof Team;
+    }
+
+    private static int shardOf(ShardRouter router, Object entity) {
+        if (entity instanceof Member) {
+            return router.shardOf((Member) entity);
+        }
+        if (entity instanceof Team) {
+            return router.shardOf((Team) entity);
+        }
+        throw new IllegalArgumentException("shard 를 정할 수 없는 엔티티입니다. " + entity);
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, Object... args) {
+        try {
+            return joinPoint.proceed(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 하이버네이트(ddl-auto)는 기본 shard 에만 스키마를 만든다.
+ * 기본 shard 의 스키마를 H2 SCRIPT NODATA 로 읽어서 나머지 shard 를 같은 스키마로 다시 만든다.
+ * ddl-auto 가 create / create-drop 일 때만 사용한다. (나머지 shard 의 기존 객체를 모두 지운다)
+ */
+@Slf4j
+public class ShardSchemaInitializer {
+
+    private final List<? extends DataSource> shards;
+
+    public ShardSchemaInitializer(List<? extends DataSource> shards) {
+        this.shards = shards;
+    }
+
+    public void copySchema() {
+        List<String> script = new JdbcTemplate(shards.get(ShardContext.DEFAULT_SHARD))
+                .queryForList("script nodata", String.class);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard == ShardContext.DEFAULT_SHARD) {
+                continue;
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.get(shard));
+            jdbcTemplate.execute("drop all objects");
+            script.forEach(jdbcTemplate::execute);
+        }
+        log.info("shard schema copied. shards={}, statements={}", shards.size() - 1, script.size());
+    }
+}
@@ -0,0 +1,176 @@
+package study.datajpa.sharding;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.async.RepositoryExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * shard 하나 또는 모든 shard 에서 트랜잭션을 열고 실행한다.
+ * 모든 shard 실행(scatter)은 repositoryExecutor 에서 동시에 실행하고 결과를 합친다.
+ * 결과는 shard 트랜잭션이 끝난 준영속 엔티티이므로 필요한 연관관계는 조회 메서드에서 함께 가져와야 한다.
+ */
+public class ShardTemplate {
+
+    private final ShardRouter router;
+    private final RepositoryExecutor repositoryExecutor;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ShardTemplate(ShardRouter router, RepositoryExecutor repositoryExecutor, PlatformTransactionManager transactionManager) {
+        this.router = router;
+        this.repositoryExecutor = repositoryExecutor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public ShardRouter router() {
+        return router;
+    }
+
+    public <T> T inShard(int shard, boolean readOnly, Supplier<T> work) {
+        TransactionTemplate transactionTemplate = readOnly ? readOnlyTransaction : transaction;
+        return ShardContext.callInShard(shard, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    //모든 shard 에서 실행한다. 결과는 shard 번호 순서
+    public <T> List<T> scatter(boolean readOnly, Supplier<T> work) {
+        return scatterShards(shard -> inShard(shard, readOnly, work));
+    }
+
+    //트랜잭션을 열지 않고 shard 만 지정해서 모든 shard 에서 실행한다. work 가 트랜잭션을 직접 나눠서 여는 경우 (chunk 단위 커밋)
+    public <T> List<T> scatterWithoutTransaction(Supplier<T> work) {
+        return scatterShards(shard -> ShardContext.callInShard(shard, work));
+    }
+
+    //호출한 스레드에서 shard 순서대로 하나씩 실행한다. shard 마다 트랜잭션을 열고 끝나면 닫는다 (스트림 조회 결과를 바로 내보낼 때)
+    public void forEachShard(boolean readOnly, Runnable work) {
+        checkNoTransaction();
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            inShard(shard, readOnly, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+
+    private <T> List<T> scatterShards(IntFunction<T> perShard) {
+        checkNoTransaction();
+        //repositoryExecutor 작업 안(예 : 리포트 백그라운드 갱신)이면 같은 실행기를 기다리지 않도록 차례로 실행한다
+        if (repositoryExecutor.isRunningTask()) {
+            return IntStream.range(0, router.shardCount())
+                    .mapToObj(perShard)
+                    .collect(Collectors.toList());
+        }
+        List<CompletableFuture<T>> futures = IntStream.range(0, router.shardCount())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> perShard.apply(shard), repositoryExecutor))
+                .collect(Collectors.toList());
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    //shard 마다 트랜잭션을 새로 열어야 하므로 호출한 쪽 트랜잭션에 참여할 수 없다
+    private static void checkNoTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("여러 shard 실행은 트랜잭션 밖에서 호출해야 합니다.");
+        }
+    }
+
+    public <T> List<T> concat(Supplier<? extends Collection<T>> query) {
+        return scatter(true, query).stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+    }
+
+    public long sum(Supplier<Long> query) {
+        return scatter(true, query).stream().mapToLong(Long::longValue).sum();
+    }
+
+    //단건 조회 : 처음 찾은 shard 의 결과
+    public <T> Optional<T> findFirst(Supplier<Optional<T>> query) {
+        return scatter(true, query).stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+    }
+
+    public <T> List<T> sorted(Sort sort, Function<Sort, List<T>> query) {
+        ShardMerge.checkNullHandling(sort);
+        List<List<T>> results = scatter(true, () -> query.apply(sort));
+        return ShardMerge.mergeSorted(results, ShardMerge.comparator(sort), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 페이징 목록 조회 : page 와 같지만 전체 개수 없이 목록만 합친다.
+     */
+    public <T> List<T> list(Pageable pageable, Function<Pageable, List<T>> query) {
+        ShardMerge.checkNullHandling(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return sorted(pageable.getSort(), sort -> query.apply(pageable));
+        }
+        Pageable top = top(pageable);
+        List<List<T>> results = scatter(true, () -> query.apply(top));
+        return ShardMerge.mergeSorted(results, ShardMerge.comparator(pageable.getSort()),
+                pageable.getOffset(), pageable.getPageSize());
+    }
+
+    /**
+     * 각 shard 에서 offset + size 개를 정렬해서 가져와 합친 다음 offset 부터 size 개를 자른다.
+     * 전체 개수는 shard 별 count 의 합이다. 뒤쪽 페이지일수록 shard 마다 읽는 양이 늘어난다.
+     */
+    public <T> Page<T> page(Pageable pageable, Function<Pageable, Page<T>> query) {
+        ShardMerge.checkNullHandling(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<T> content = scatter(true, () -> query.apply(pageable)).stream()
+                    .flatMap(page -> page.getContent().stream())
+                    .sorted(ShardMerge.comparator(pageable.getSort()))
+                    .collect(Collectors.toList());
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        Pageable top = top(pageable);
+        List<Page<T>> pages = scatter(true, () -> query.apply(top));
+
+        List<T> content = ShardMerge.mergeSorted(
+                pages.stream().map(Page::getContent).collect(Collectors.toList()),
+                ShardMerge.comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    //shard 마다 읽을 범위 : 첫 페이지부터 offset + size 개
+    private static Pageable top(Pageable pageable) {
+        long end = pageable.getOffset() + pageable.getPageSize();
+        if (end > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("shard 전체 페이징은 offset + size 가 " + Integer.MAX_VALUE + " 이하여야 합니다.");
+        }
+        return PageRequest.of(0, (int) end, pageable.getSort());
+    }
+}
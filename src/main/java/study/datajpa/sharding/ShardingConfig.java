@@ -0,0 +1,122 @@
+package study.datajpa.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.async.RepositoryExecutor;
+import study.datajpa.datasource.DataSourcePoolProperties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * sharding.enabled=true 이면 Member / Team 을 sharding.urls 의 DB 들에 나눠서 저장한다.
+ * MemberRepository / TeamRepository 호출은 ShardRoutingAspect 가 shard 를 정하거나 모든 shard 에서 실행해서 합친다.
+ * 트랜잭션 안에서 리포지토리를 호출하는 서비스 메서드는 @ShardKey 로 트랜잭션 전에 shard 를 지정한다. (ShardKeyAspect)
+ * 라우팅 대상이 아닌 리포지토리 메서드는 ShardContext 로 shard 를 지정하지 않으면 예외가 난다.
+ * DataSource / JdbcTemplate 을 직접 쓰는 코드는 기본 shard(0)에서만 실행된다.
+ * 기본 shard 만 보는 기능과는 같이 쓸 수 없으므로 시작할 때 확인한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    public ShardingConfig(Environment environment) {
+        //둘 다 dataSource 빈을 등록한다
+        reject(environment, "datasource.replica.enabled", false, "복제 DB 라우팅과 같이 쓸 수 없습니다.");
+        //relay 는 기본 shard 의 outbox_event 만 읽어서 다른 shard 의 이벤트는 보내지 않는다
+        reject(environment, "outbox.relay.enabled", false, "outbox relay 는 기본 shard 만 읽습니다.");
+        //UsernameIndex 는 기본 shard 만 읽어서 다른 shard 의 회원을 없다고 답한다
+        reject(environment, "membership.enabled", false, "username 필터는 기본 shard 만 읽습니다.");
+        //요청 동안 커넥션 하나를 잡고 있어서 호출마다 shard 를 바꿀 수 없다
+        reject(environment, "spring.jpa.open-in-view", true, "open-in-view 를 끄고 사용해야 합니다.");
+    }
+
+    private static void reject(Environment environment, String property, boolean defaultValue, String message) {
+        if (environment.getProperty(property, Boolean.class, defaultValue)) {
+            throw new IllegalStateException("sharding.enabled=true 이면 " + property + "=true 를 쓸 수 없습니다. " + message);
+        }
+    }
+
+    @Bean
+    public DataSource dataSource(ShardPools shardPools) {
+        return shardPools.getRouting();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardPools shardPools(DataSourceProperties dataSourceProperties, ShardingProperties shardingProperties,
+                                 DataSourcePoolProperties poolProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        if (shardingProperties.getUrls().isEmpty()) {
+            throw new IllegalStateException("sharding.urls 가 비어 있습니다.");
+        }
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (String url : shardingProperties.getUrls()) {
+            HikariDataSource shard = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            shard.setPoolName("shard-" + shards.size());
+            poolProperties.applyTo(shard);
+            meterRegistry.ifAvailable(registry -> shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            shards.add(shard);
+        }
+        return new ShardPools(shards, new ShardRoutingDataSource(shards));
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties shardingProperties) {
+        return new ShardRouter(shardingProperties.getUrls().size());
+    }
+
+    //shard 별 id 생성기를 켜고 쿼리 캐시를 끈다. 쿼리 캐시 키에 shard 가 없어서 다른 shard 의 결과를 돌려줄 수 있다
+    //(엔티티 2차 캐시는 id 에 shard 가 들어 있으므로 그대로 쓴다)
+    //order by 의 null 위치를 방향과 관계없이 앞으로 고정한다. shard 결과를 합치는 ShardMerge.comparator 와 같아야 한다
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernateProperties() {
+        return properties -> {
+            properties.put(ShardAwareSequenceGenerator.ENABLED_SETTING, true);
+            properties.put("hibernate.cache.use_query_cache", false);
+            properties.put("hibernate.order_by.default_null_ordering", "first");
+        };
+    }
+
+    //EntityManagerFactory 가 기본 shard 에 스키마를 만든 뒤에 나머지 shard 에 복사한다
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardPools shardPools, EntityManagerFactory emf,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        ShardSchemaInitializer initializer = new ShardSchemaInitializer(shardPools.getShards());
+        if (ddlAuto.startsWith("create")) {
+            initializer.copySchema();
+        }
+        return initializer;
+    }
+
+    @Bean
+    public ShardTemplate shardTemplate(ShardRouter shardRouter, RepositoryExecutor repositoryExecutor,
+                                       PlatformTransactionManager transactionManager) {
+        return new ShardTemplate(shardRouter, repositoryExecutor, transactionManager);
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardTemplate shardTemplate) {
+        return new ShardRoutingAspect(shardTemplate);
+    }
+
+    @Bean
+    public ShardKeyAspect shardKeyAspect(ShardRouter shardRouter) {
+        return new ShardKeyAspect(shardRouter);
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    //shard JDBC URL 목록, 순서가 shard 번호다 (최대 ShardAwareSequenceGenerator.MAX_SHARDS 개). 계정은 spring.datasource 와 같다
+    //순서를 바꾸거나 중간에 추가하면 기존 id 의 shard 가 달라진다
+    private List<String> urls = new ArrayList<>();
+}
@@ -0,0 +1,80 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+//primary 1개 + 로컬 H2 복제 DB 2개로 라우팅 확인
+class ReplicaRoutingDataSourceTest {
+
+    HikariDataSource primary;
+    List<HikariDataSource> replicas;
+    ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() {
+        primary = h2("primary");
+        replicas = Arrays.asList(h2("replica1"), h2("replica2"));
+        routing = new ReplicaRoutingDataSource(primary, replicas, ReplicaSelection.ROUND_ROBIN);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    @Test
+    public void writeGoesToPrimary() throws Exception {
+        assertThat(currentDatabase()).contains("primary");
+    }
+
+    @Test
+    public void readOnlyRoundRobin() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(currentDatabase()).contains("replica1");
+        assertThat(currentDatabase()).contains("replica2");
+        assertThat(currentDatabase()).contains("replica1");
+    }
+
+    @Test
+    public void fallbackWhenReplicaLagging() throws Exception {
+        //지연 10초 > 허용 5초 -> 모든 복제 DB 제외
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routing, replicas, "select 10", Duration.ofSeconds(5));
+        monitor.checkAll();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(currentDatabase()).contains("primary");
+
+        routing.markHealthy(1, true);
+        assertThat(currentDatabase()).contains("replica2");
+        monitor.close();
+    }
+
+    private String currentDatabase() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -9,6 +9,7 @@ import study.datajpa.repository.MemberRepository;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @Transactional
@@ -40,4 +41,20 @@ class JpaBaseEntityTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void auditingResolvedOncePerTransaction() throws Exception {
+        //given
+        Member member1 = memberRepository.save(new Member("member1"));
+        Thread.sleep(10);
+        Member member2 = memberRepository.save(new Member("member2"));
+
+        //when
+        em.flush();
+
+        //then
+        //같은 트랜잭션에서는 등록 시각과 등록자를 한번만 구한다
+        assertThat(member1.getCreated()).isNotNull().isEqualTo(member2.getCreated());
+        assertThat(member1.getCreateBy()).isNotNull().isEqualTo(member2.getCreateBy());
+    }
+
+}
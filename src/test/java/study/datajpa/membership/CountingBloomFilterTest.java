@@ -0,0 +1,56 @@
+package study.datajpa.membership;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() throws Exception {
+        //given
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+
+        //when
+        IntStream.range(0, 10_000).forEach(i -> filter.add("member" + i));
+
+        //then
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("member" + i))).isTrue();
+        assertThat(filter.entries()).isEqualTo(10_000);
+    }
+
+    @Test
+    public void falsePositiveRateNearTarget() throws Exception {
+        //given
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("member" + i));
+
+        //when
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unknown" + i)).count();
+
+        //then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveProbability()).isCloseTo(0.01, within(0.005));
+    }
+
+    @Test
+    public void removeKeepsOtherValues() throws Exception {
+        //given
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        IntStream.range(0, 1_000).forEach(i -> filter.add("member" + i));
+        filter.add("duplicate");
+        filter.add("duplicate");
+
+        //when
+        IntStream.range(0, 500).forEach(i -> filter.remove("member" + i));
+        filter.remove("duplicate");
+
+        //then
+        //지우지 않은 값과 한번 더 추가된 값은 그대로 남는다
+        assertThat(IntStream.range(500, 1_000).allMatch(i -> filter.mightContain("member" + i))).isTrue();
+        assertThat(filter.mightContain("duplicate")).isTrue();
+        assertThat(IntStream.range(0, 500).filter(i -> filter.mightContain("member" + i)).count()).isLessThan(50);
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.membership;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.metrics.SqlStatementCounter;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+//필터는 커밋된 변경을 기준으로 동작하므로 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest(properties = "membership.enabled=true")
+class UsernameIndexTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void missingUsernameWithoutQuery() throws Exception {
+        //given
+        String username = "missing-" + UUID.randomUUID();
+        double negatives = meterRegistry.counter("membership.lookups", "result", "negative").count();
+        long statements = SqlStatementCounter.statements();
+
+        //when
+        Optional<Member> optionalMember = memberRepository.findOptionalByUsername(username);
+        Member member = memberRepository.findMemberByUsername(username);
+
+        //then
+        assertThat(usernameIndex.isReady()).isTrue();
+        assertThat(optionalMember).isEmpty();
+        assertThat(member).isNull();
+        assertThat(SqlStatementCounter.statements() - statements).isZero();
+        assertThat(meterRegistry.counter("membership.lookups", "result", "negative").count() - negatives).isEqualTo(2);
+    }
+
+    @Test
+    public void savedAndDeletedMember() throws Exception {
+        //given
+        String username = "member-" + UUID.randomUUID();
+        Member member = memberRepository.save(new Member(username, 10));
+
+        //when //then
+        assertThat(memberRepository.findOptionalByUsername(username)).isPresent();
+        assertThat(memberRepository.findMemberByUsername(username).getId()).isEqualTo(member.getId());
+
+        //삭제는 커밋된 뒤에 필터에서 빠진다
+        memberRepository.delete(member);
+        assertThat(usernameIndex.mightContain(username)).isFalse();
+        assertThat(memberRepository.findOptionalByUsername(username)).isEmpty();
+    }
+
+    @Test
+    public void bypassInWriteTransaction() throws Exception {
+        //given
+        String username = "member-" + UUID.randomUUID();
+
+        //when
+        //persist 만 하고 flush 전이라 필터에는 아직 없지만 쓰기 트랜잭션 안에서는 DB 를 조회한다 (auto flush)
+        Optional<Member> found = new TransactionTemplate(transactionManager).execute(status -> {
+            memberRepository.save(new Member(username, 10));
+            return memberRepository.findOptionalByUsername(username);
+        });
+
+        //then
+        assertThat(found).isPresent();
+    }
+}
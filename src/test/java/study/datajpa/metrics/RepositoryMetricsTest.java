@@ -0,0 +1,65 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "repository.metrics.fail-on-query-budget=true",
+        "repository.metrics.query-budget[MemberRepository.findUsernameList]=0"})
+@Transactional
+class RepositoryMetricsTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void recordRepositoryMetrics() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        memberRepository.findMemberfetchJoin();
+
+        //then
+        String method = "MemberRepository.findMemberfetchJoin";
+        Timer latency = meterRegistry.get("repository.invocations").tag("method", method).timer();
+        assertThat(latency.count()).isEqualTo(1);
+        assertThat(meterRegistry.get("repository.statements").tag("method", method).summary().totalAmount())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("repository.rows").tag("method", method).summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void failOverQueryBudget() throws Exception {
+        //given
+        em.persist(new Member("member1", 10));
+        em.flush();
+
+        //when then
+        assertThatThrownBy(() -> memberRepository.findUsernameList())
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+}
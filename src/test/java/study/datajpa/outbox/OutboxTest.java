@@ -0,0 +1,91 @@
+package study.datajpa.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+//outbox 는 커밋될 때 기록되므로 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest
+class OutboxTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //다른 테스트에서 커밋한 변경 이벤트는 지운다
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("delete from outbox_event");
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from outbox_event");
+    }
+
+    @Test
+    public void recordChangesOnCommit() throws Exception {
+        //given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long memberId = transaction.execute(status -> {
+            Team team = teamRepository.save(new Team("teamA"));
+            return memberRepository.save(new Member("member1", 20, team)).getId();
+        });
+
+        //when
+        transaction.executeWithoutResult(status -> memberRepository.findById(memberId).get().setAge(21));
+        memberRepository.bulkAgePlus(21);
+        transaction.executeWithoutResult(status -> {
+            memberRepository.save(new Member("rollback", 10));
+            status.setRollbackOnly();
+        });
+        memberRepository.deleteById(memberId);
+
+        //then
+        List<String> events = jdbcTemplate.queryForList("select event_type from outbox_event" +
+                " where aggregate_type = 'Member' and aggregate_id = ? order by outbox_event_id", String.class, memberId);
+        assertThat(events).containsExactly("INSERT", "UPDATE", "BULK_UPDATE", "DELETE");
+        assertThat(jdbcTemplate.queryForObject("select payload from outbox_event" +
+                " where aggregate_type = 'Member' and event_type = 'INSERT'", String.class))
+                .contains("\"username\":\"member1\"", "\"teamId\":");
+    }
+
+    @Test
+    public void relay() throws Exception {
+        //given
+        teamRepository.save(new Team("teamA"));
+        teamRepository.save(new Team("teamB"));
+        List<OutboxMessage> published = new ArrayList<>();
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, transactionManager, published::addAll, 1);
+
+        //when
+        relay.drain();
+
+        //then
+        assertThat(published).extracting("aggregateType").containsExactly("Team", "Team");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_event", Long.class)).isZero();
+    }
+}
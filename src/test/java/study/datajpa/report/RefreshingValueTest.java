@@ -0,0 +1,143 @@
+package study.datajpa.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RefreshingValueTest {
+
+    static final Duration REFRESH_AFTER = Duration.ofSeconds(30);
+    static final Duration EXPIRE_AFTER = Duration.ofMinutes(10);
+
+    //시간은 직접 옮기고, 실행기는 작업을 모아 두었다가 runAll 할 때 실행한다
+    AtomicLong now = new AtomicLong();
+    List<Runnable> tasks = new ArrayList<>();
+    Executor executor = tasks::add;
+    AtomicInteger loads = new AtomicInteger();
+    Supplier<Integer> loader = loads::incrementAndGet;
+
+    @Test
+    public void cachedWithinRefreshAfter() throws Exception {
+        //given
+        RefreshingValue<Integer> value = newValue(loader, executor);
+        assertThat(value.get()).isEqualTo(1);
+
+        //when
+        advance(REFRESH_AFTER.minusSeconds(1));
+
+        //then
+        assertThat(value.get()).isEqualTo(1);
+        assertThat(tasks).isEmpty();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void staleValueAndOneBackgroundRefresh() throws Exception {
+        //given
+        RefreshingValue<Integer> value = newValue(loader, executor);
+        value.get();
+
+        //when
+        advance(REFRESH_AFTER);
+
+        //then
+        //갱신이 끝날 때까지 기존 값을 반환하고 갱신은 한번만 요청한다
+        assertThat(value.get()).isEqualTo(1);
+        assertThat(value.get()).isEqualTo(1);
+        assertThat(tasks).hasSize(1);
+        assertThat(loads.get()).isEqualTo(1);
+
+        runAll();
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(value.get()).isEqualTo(2);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    public void reloadOnCallerAfterExpireAfter() throws Exception {
+        //given
+        RefreshingValue<Integer> value = newValue(loader, executor);
+        value.get();
+
+        //when
+        advance(EXPIRE_AFTER);
+
+        //then
+        //만료된 값은 반환하지 않고 호출한 스레드에서 다시 읽는다
+        assertThat(value.get()).isEqualTo(2);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    public void failedRefreshKeepsPreviousValue() throws Exception {
+        //given
+        RefreshingValue<Integer> value = newValue(() -> {
+            if (loads.incrementAndGet() == 2) {
+                throw new IllegalStateException("load failed");
+            }
+            return loads.get();
+        }, executor);
+        value.get();
+        advance(REFRESH_AFTER);
+
+        //when
+        value.get();
+        runAll();
+
+        //then
+        //기존 값을 유지하고 다음 호출에서 다시 갱신한다
+        assertThat(value.get()).isEqualTo(1);
+        assertThat(tasks).hasSize(1);
+        runAll();
+        assertThat(value.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void rejectedRefreshRetriesLater() throws Exception {
+        //given
+        AtomicInteger rejected = new AtomicInteger();
+        Executor rejecting = task -> {
+            if (rejected.incrementAndGet() == 1) {
+                throw new RejectedExecutionException("full");
+            }
+            tasks.add(task);
+        };
+        RefreshingValue<Integer> value = newValue(loader, rejecting);
+        value.get();
+        advance(REFRESH_AFTER);
+
+        //when
+        //실행기가 거절해도 기존 값을 반환한다
+        assertThat(value.get()).isEqualTo(1);
+
+        //then
+        //갱신 중 표시가 남지 않아서 다음 호출에서 다시 요청한다
+        assertThat(value.get()).isEqualTo(1);
+        assertThat(tasks).hasSize(1);
+        runAll();
+        assertThat(value.get()).isEqualTo(2);
+    }
+
+    private RefreshingValue<Integer> newValue(Supplier<Integer> loader, Executor executor) {
+        return new RefreshingValue<>(loader, REFRESH_AFTER, EXPIRE_AFTER, executor, now::get);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private void runAll() {
+        List<Runnable> running = new ArrayList<>(tasks);
+        tasks.clear();
+        running.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CountCacheTest {
+
+    @Test
+    public void neverExceedsMaxEntries() throws Exception {
+        //given
+        CountCache countCache = new CountCache(Duration.ofMinutes(1), 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            countCache.get("key" + i, () -> loads.incrementAndGet());
+        }
+        countCache.get("key0", () -> loads.incrementAndGet());
+        countCache.get("key9", () -> loads.incrementAndGet());
+
+        //then
+        //가득 차면 새 조건은 캐시하지 않는다 : key0 은 캐시에서, key9 는 다시 조회
+        assertThat(countCache.size()).isEqualTo(3);
+        assertThat(countCache.contains("key0")).isTrue();
+        assertThat(countCache.contains("key9")).isFalse();
+        assertThat(loads.get()).isEqualTo(11);
+    }
+
+    @Test
+    public void expiredEntriesMakeRoom() throws Exception {
+        //given
+        CountCache countCache = new CountCache(Duration.ZERO, 2);
+        countCache.get("key0", () -> 1);
+        countCache.get("key1", () -> 1);
+
+        //when
+        countCache.get("key2", () -> 1);
+
+        //then
+        //TTL 0 : 모두 만료되어 지워지고 새 항목이 들어간다
+        assertThat(countCache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class ItemRepositoryTest {
+    @Autowired
+    ItemRepository itemRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void upsertAll() throws Exception {
+        //given
+        itemRepository.save(new Item("item0"));
+        itemRepository.save(new Item("item1"));
+        em.flush();
+        em.clear();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            items.add(new Item("item" + i));
+        }
+        items.add(new Item("item10"));
+
+        //when
+        long inserted = itemRepository.upsertAll(items);
+
+        //then
+        assertThat(inserted).isEqualTo(248);
+        assertThat(itemRepository.count()).isEqualTo(250);
+        assertThat(itemRepository.findById("item249").get().getCreateDate()).isNotNull();
+    }
+
+    @Test
+    public void upsertAllRejectsNullId() throws Exception {
+        //given
+        List<Item> items = new ArrayList<>();
+        items.add(new Item("item0"));
+        items.add(new Item(null));
+
+        //when //then
+        assertThatThrownBy(() -> itemRepository.upsertAll(items))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.Window;
 import study.datajpa.entity.Member;
 
 import java.util.List;
@@ -133,4 +134,25 @@ class MemberJpaRepositoryTest {
         //then
         assertThat(resultCount).isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void keysetPaging() throws Exception {
+        //given
+        //클래스 전체가 @Rollback(false) 이므로 다른 테스트와 겹치지 않는 나이를 쓴다
+        memberJpaRepository.save(new Member("keyset1", 15));
+        memberJpaRepository.save(new Member("keyset2", 15));
+        memberJpaRepository.save(new Member("keyset3", 15));
+        memberJpaRepository.save(new Member("keyset4", 15));
+        memberJpaRepository.save(new Member("keyset5", 15));
+
+        //when
+        Window<Member> first = memberJpaRepository.findWindowByAge(15, null, 3);
+        Window<Member> second = memberJpaRepository.findWindowByAge(15, first.getNextCursor(), 3);
+
+        //then
+        assertThat(first.getContent().size()).isEqualTo(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent().size()).isEqualTo(2);
+        assertThat(second.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,97 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+//비동기 조회는 다른 스레드의 트랜잭션에서 실행되므로 커밋된 데이터만 보인다 -> 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest
+class MemberRepositoryAsyncTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void fanOut() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 10, team));
+        memberRepository.save(new Member("member3", 20, team));
+
+        //when
+        //독립적인 조회 세 개를 동시에 실행한다
+        CompletableFuture<List<MemberDto>> dtos = memberRepository.findMemberDtoAsync();
+        CompletableFuture<List<String>> usernames = memberRepository.findUsernameListAsync();
+        CompletableFuture<Page<Member>> page = memberRepository.findAsyncByAge(10,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "username")));
+        CompletableFuture.allOf(dtos, usernames, page).join();
+
+        //then
+        assertThat(dtos.join()).extracting("teamName").containsOnly("teamA");
+        assertThat(usernames.join()).containsExactlyInAnyOrder("member1", "member2", "member3");
+        assertThat(page.join().getTotalElements()).isEqualTo(2);
+        assertThat(page.join().getContent().get(0).getUsername()).isEqualTo("member2");
+        assertThat(page.join().getContent().get(0).getTeam().getName()).isEqualTo("teamA");
+    }
+
+    @Test
+    public void findPageWithConcurrentCount() throws Exception {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 30));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        //when
+        Page<Member> page = memberRepository.findPageByAge(30, pageRequest);
+        memberRepository.save(new Member("member6", 30));
+        Page<Member> cached = memberRepository.findPageByAge(30, pageRequest);
+
+        //then
+        assertThat(page.getContent()).extracting("username").containsExactly("member5", "member4", "member3");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        //count 는 TTL 동안 캐시된다
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        assertThat(cached.getContent()).extracting("username").containsExactly("member6", "member5", "member4");
+    }
+
+    @Test
+    public void countCacheKeySeparatesNullUsername() throws Exception {
+        //given
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("null", 10));
+        }
+        //두번째 페이지가 비어 있으면 count 쿼리(캐시)로 전체 개수를 구한다
+        PageRequest secondPage = PageRequest.of(1, 3);
+
+        //when
+        Page<Member> named = memberRepository.findPageByUsername("null", secondPage);
+        Page<Member> nullUsername = memberRepository.findPageByUsername(null, secondPage);
+
+        //then
+        assertThat(named.getTotalElements()).isEqualTo(3);
+        assertThat(nullUsername.getTotalElements()).isEqualTo(0);
+    }
+}
@@ -2,9 +2,11 @@ package study.datajpa.repository;
 
 import com.sun.source.tree.AssertTree;
 import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,10 +14,19 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.Param;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.dto.Window;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 import study.datajpa.projection.UsernameOnly;
+import study.datajpa.projection.UsernameOnlyImpl;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -24,6 +35,9 @@ import javax.persistence.PersistenceUnitUtil;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -155,6 +169,24 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findByNamesChunked() {
+        //given
+        List<String> names = IntStream.range(0, 1200)
+                .mapToObj(i -> "chunk" + i)
+                .collect(Collectors.toList());
+        memberRepository.bulkInsert(names.stream().limit(600).map(name -> new Member(name, 10)));
+        names.add("chunk0");
+
+        //when
+        List<Member> result = memberRepository.findByNames(names);
+
+        //then
+        //1200 개 -> 512 + 512 + 176 세 번 나눠서 조회, 중복 이름은 한번만 조회한다
+        assertThat(result).hasSize(600);
+        assertThat(result).extracting("username").doesNotHaveDuplicates();
+    }
+
     @Test
     public void returnType() {
         Member memberAA = new Member("memberAA", 10);
@@ -318,4 +350,268 @@ class MemberRepositoryTest {
         assertThat(result.size()).isEqualTo(1);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bulkInsert() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        teamRepository.save(teamA);
+
+        //when
+        long count = memberRepository.bulkInsert(
+                IntStream.range(0, 250).mapToObj(i -> new Member("member" + i, i, teamA)));
+
+        //then
+        assertThat(count).isEqualTo(250);
+        assertThat(memberRepository.count()).isEqualTo(250);
+    }
+
+    @Test
+    public void keysetPaging() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+
+        //when
+        Window<Member> first = memberRepository.findWindowByAge(10, null, 3);
+        Window<Member> second = memberRepository.findWindowByAge(10, MemberCursor.decode(first.getNextToken()), 3);
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member5", "member4", "member3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member2", "member1");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void keysetPagingNullUsername() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member(null, 10));
+        memberRepository.save(new Member(null, 10));
+
+        //when
+        Window<Member> first = memberRepository.findWindowByAge(10, null, 3);
+        MemberCursor cursor = MemberCursor.decode(first.getNextToken());
+        Window<Member> second = memberRepository.findWindowByAge(10, cursor, 3);
+
+        //then
+        //username 이 null 인 회원은 맨 뒤, 커서의 username 도 "null" 문자열이 아닌 null 로 복원된다
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member1", null);
+        assertThat(cursor.getUsername()).isNull();
+        assertThat(second.getContent()).extracting("username").containsExactly((String) null);
+        assertThat(second.hasNext()).isFalse();
+        assertThatThrownBy(() -> memberRepository.findWindowByAge(10, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void streamMemberDto() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    @Test
+    public void streamMembers() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> result;
+        try (Stream<Member> stream = memberRepository.streamMembers()) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        //then
+        //소비가 끝난 회원은 준영속 상태
+        assertThat(result.size()).isEqualTo(2);
+        for (Member member : result) {
+            assertThat(em.contains(member)).isFalse();
+        }
+    }
+
+    @Test
+    public void projectionImplementation() throws Exception {
+        //given
+        em.persist(new Member("m1", 10));
+        em.persist(new Member("m2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<UsernameOnly> result = memberRepository.findProjectonsByUsername("m1");
+        List<UsernameOnlyDto> dtoResult = memberRepository.findProjectionsByUsername("m2", UsernameOnlyDto.class);
+
+        //then
+        //프록시가 아니라 @ProjectionImplementation 으로 지정한 구현 클래스
+        assertThat(result.get(0)).isExactlyInstanceOf(UsernameOnlyImpl.class);
+        assertThat(result.get(0).getUsername()).isEqualTo("m1");
+        assertThat(dtoResult.get(0).getUsername()).isEqualTo("m2");
+    }
+
+    //open projection : SpEL 로 엔티티 전체를 사용한다
+    public interface UsernameAndAge {
+        @Value("#{target.username + ' ' + target.age}")
+        String getUsernameAndAge();
+    }
+
+    @Test
+    public void dynamicProjectionFallback() throws Exception {
+        //given
+        em.persist(new Member("m1", 10));
+        em.flush();
+        em.clear();
+
+        //when
+        //@ProjectionImplementation 이 없는 타입은 스프링 데이터 동적 projection 으로 조회한다
+        List<UsernameAndAge> openResult = memberRepository.findProjectionsByUsername("m1", UsernameAndAge.class);
+        List<Member> entityResult = memberRepository.findProjectionsByUsername("m1", Member.class);
+
+        //then
+        assertThat(openResult).extracting("usernameAndAge").containsExactly("m1 10");
+        assertThat(entityResult).extracting("username").containsExactly("m1");
+    }
+
+    @Test
+    public void bulkUpdateChunked() throws Exception {
+        //given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 19));
+        Member member3 = memberRepository.save(new Member("member3", 20));
+        memberRepository.save(new Member("member4", 21));
+        memberRepository.save(new Member("member5", 40));
+
+        //when
+        BulkUpdateResult result = memberRepository.bulkAgePlus(20, 2);
+
+        //then
+        assertThat(result.getUpdatedCount()).isEqualTo(3);
+        assertThat(result.getAffectedIds()).hasSize(3).contains(member3.getId());
+        //영속성 컨텍스트를 비우지 않는다 : 변경된 회원만 refresh, 나머지는 그대로 관리 상태
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(member3)).isTrue();
+        assertThat(member3.getAge()).isEqualTo(21);
+    }
+
+    @Test
+    public void search() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("search1", 10, teamA));
+        em.persist(new Member("search2", 20, teamA));
+        em.persist(new Member("search3", 30, teamB));
+        em.persist(new Member("search_4", 40, teamB));
+        em.persist(new Member("other", 20, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("search");
+        condition.setAgeGoe(20);
+
+        MemberSearchCondition teamCondition = new MemberSearchCondition();
+        teamCondition.setTeamName("teamB");
+        teamCondition.setUsernamePrefix("search_");
+
+        //when
+        List<Member> result = memberRepository.search(condition, PageRequest.of(0, 2, Sort.by("age")));
+        List<Member> teamResult = memberRepository.search(teamCondition, PageRequest.of(0, 10));
+
+        //then
+        assertThat(result).extracting("username").containsExactly("search2", "search3");
+        //'_' 는 와일드카드가 아니라 문자로 검색한다
+        assertThat(teamResult).extracting("username").containsExactly("search_4");
+        assertThat(teamResult.get(0).getTeam().getName()).isEqualTo("teamB");
+    }
+
+    @Test
+    public void findAllReadOnly() throws Exception {
+        //given
+        memberRepository.save(new Member("readOnly1", 10));
+        em.flush();
+        em.clear();
+
+        //when
+        Member member = memberRepository.findAllReadOnly().get(0);
+        member.setAge(99);
+        em.flush();
+        em.clear();
+
+        //then
+        //쓰기 트랜잭션 안이지만 읽기 전용으로 로딩되어 변경 감지를 하지 않는다
+        assertThat(em.unwrap(Session.class).isDefaultReadOnly()).isFalse();
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void reports() throws Exception {
+        //given
+        memberRepository.deleteAllInBatch();
+        Team teamA = new Team("reportA");
+        Team teamB = new Team("reportB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<TeamStatsDto> teamStats = memberRepository.findTeamStats();
+        List<AgeCountDto> histogram = memberRepository.findAgeHistogram();
+        AgeStatsDto ageStats = memberRepository.findAgeStats();
+
+        //then
+        assertThat(teamStats).filteredOn(stats -> stats.getTeamName().startsWith("report"))
+                .extracting("teamName", "memberCount", "averageAge")
+                .containsExactly(tuple("reportA", 2L, 15.0), tuple("reportB", 0L, null));
+        assertThat(histogram).extracting("age", "count").containsExactly(tuple(10, 1L), tuple(20, 2L));
+        assertThat(ageStats.getMemberCount()).isEqualTo(3);
+        assertThat(ageStats.getMinAge()).isEqualTo(10);
+        assertThat(ageStats.getMaxAge()).isEqualTo(20);
+    }
+
+    @Test
+    public void findMemberDtoByAge() throws Exception {
+        //given
+        Team team = new Team("jdbcTeam");
+        em.persist(team);
+        em.persist(new Member("jdbc1", 77, team));
+        em.persist(new Member("jdbc2", 77));
+
+        //when
+        //flush 하지 않은 회원도 조회된다
+        List<MemberDto> result = memberRepository.findMemberDtoByAge(77);
+
+        //then
+        assertThat(result).extracting("username", "teamName")
+                .containsExactlyInAnyOrder(tuple("jdbc1", "jdbcTeam"), tuple("jdbc2", null));
+        assertThat(result).extracting("id").doesNotContainNull();
+    }
+}
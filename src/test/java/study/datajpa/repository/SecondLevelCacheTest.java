@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+//2차 캐시는 커밋된 데이터만 다른 트랜잭션에서 읽을 수 있으므로 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void teamEntityCache() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        emf.getCache().evictAll();
+        statistics.clear();
+
+        //when
+        teamRepository.findById(team.getId()); //miss -> DB 조회 후 캐시에 저장
+        teamRepository.findById(team.getId()); //hit
+
+        //then
+        assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void cacheMetrics() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        emf.getCache().evictAll();
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        //when
+        teamRepository.findById(team.getId());
+        teamRepository.findById(team.getId());
+
+        //then
+        //하이버네이트 통계가 아니라 ehcache 통계로 기록한다
+        assertThat(cacheGets("hit") - hits).isEqualTo(1);
+        assertThat(cacheGets("miss") - misses).isEqualTo(1);
+    }
+
+    @Test
+    public void queryCacheEvictedByBulkUpdate() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        Member member = memberRepository.save(new Member("member1", 20, team));
+        emf.getCache().evictAll();
+        statistics.clear();
+
+        memberRepository.findByUsername("member1");
+        memberRepository.findByUsername("member1");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        //when
+        new TransactionTemplate(transactionManager).execute(status -> memberRepository.bulkAgePlus(20));
+
+        //then
+        //벌크 연산 이후 쿼리 캐시와 엔티티 캐시가 무효화되어 변경된 나이를 읽는다
+        Member findMember = memberRepository.findByUsername("member1").get(0);
+        assertThat(findMember.getAge()).isEqualTo(21);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(21);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", Team.class.getName())
+                .tag("result", result)
+                .functionCounter().count();
+    }
+}
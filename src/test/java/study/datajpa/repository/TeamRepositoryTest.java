@@ -0,0 +1,59 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.TeamMembersDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class TeamRepositoryTest {
+    @Autowired
+    TeamRepository teamRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void findTeamMembersQueryCount() throws Exception {
+        assertThat(countQueries(3)).isEqualTo(2);
+        assertThat(countQueries(30)).isEqualTo(2);
+    }
+
+    //팀 teamCount 개를 만들고 findTeamMembers 가 실행한 쿼리 수를 센다
+    private long countQueries(int teamCount) {
+        //given
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i + "_1", 10, team));
+            em.persist(new Member("member" + i + "_2", 20, team));
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        List<TeamMembersDto> result = teamRepository.findTeamMembers();
+
+        //then
+        assertThat(result).allMatch(dto -> dto.getMemberCount() == 2);
+        long queryCount = statistics.getPrepareStatementCount();
+        em.clear();
+        return queryCount;
+    }
+}
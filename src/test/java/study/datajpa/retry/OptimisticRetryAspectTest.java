@@ -0,0 +1,104 @@
+package study.datajpa.retry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+//재시도는 트랜잭션 밖에서 호출될 때만 동작하므로 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest
+class OptimisticRetryAspectTest {
+    @Autowired
+    FlakyWriter flakyWriter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void retryUntilSuccess() throws Exception {
+        //given
+        flakyWriter.reset(2);
+
+        //when
+        int attempts = flakyWriter.write();
+
+        //then
+        assertThat(attempts).isEqualTo(3);
+    }
+
+    @Test
+    public void giveUpAfterMaxAttempts() throws Exception {
+        //given
+        flakyWriter.reset(10);
+
+        //when //then
+        assertThatThrownBy(() -> flakyWriter.write())
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(flakyWriter.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    public void staleUpdateDetectedByVersion() throws Exception {
+        //given
+        Member member = memberRepository.save(new Member("member1", 10));
+        Member stale = memberRepository.findById(member.getId()).get();
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> memberRepository.findById(member.getId()).get().setAge(20));
+
+        //when //then
+        //먼저 커밋된 수정(version 증가)을 덮어쓰지 못한다
+        stale.setAge(30);
+        assertThatThrownBy(() -> memberRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(20);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        FlakyWriter flakyWriter() {
+            return new FlakyWriter();
+        }
+    }
+
+    //failures 번까지 낙관적 락 충돌을 던지고 그 다음부터 성공한다
+    static class FlakyWriter {
+        private int failures;
+        private int attempts;
+
+        public void reset(int failures) {
+            this.failures = failures;
+            this.attempts = 0;
+        }
+
+        @OptimisticRetry(maxAttempts = 3, backoffMillis = 1)
+        public int write() {
+            attempts++;
+            if (attempts <= failures) {
+                throw new ObjectOptimisticLockingFailureException(Member.class, 1L);
+            }
+            return attempts;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package study.datajpa.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.AgeCountDto;
+import study.datajpa.dto.AgeStatsDto;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+//shard 마다 별도의 인메모리 H2, 리포지토리 호출마다 트랜잭션을 열어야 하므로 테스트 트랜잭션을 사용하지 않는다
+@SpringBootTest(properties = {
+        "sharding.enabled=true",
+        "sharding.urls[0]=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "sharding.urls[1]=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "sharding.urls[2]=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "spring.jpa.open-in-view=false"})
+class ShardRoutingTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberService memberService;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void routeByTeamAndScatterGather() throws Exception {
+        //given
+        List<Member> members = saveMembers();
+
+        //when
+        List<String> usernames = memberRepository.findUsernameList();
+        Page<Member> page = memberRepository.findAll(PageRequest.of(2, 4, Sort.by("username").descending()));
+
+        //then
+        //회원은 소속 팀의 shard 에 저장되고 id 로 shard 를 찾을 수 있다
+        for (Member member : members) {
+            assertThat(shardRouter.shardOf(member.getId())).isEqualTo(shardRouter.shardOf(member.getTeam()));
+            assertThat(memberRepository.findById(member.getId()).get().getUsername()).isEqualTo(member.getUsername());
+        }
+        //shard 별 시퀀스를 써도 id 가 겹치지 않는다
+        assertThat(members.stream().map(Member::getId).distinct().count()).isEqualTo(30);
+        assertThat(members.stream().map(member -> shardRouter.shardOf(member.getId())).distinct().count()).isEqualTo(3);
+        IntStream.range(0, 3).forEach(shard -> assertThat(ShardContext.callInShard(shard, memberRepository::count))
+                .isEqualTo(members.stream().filter(member -> shardRouter.shardOf(member.getId()) == shard).count()));
+
+        assertThat(usernames).containsExactlyInAnyOrderElementsOf(
+                members.stream().map(Member::getUsername).collect(Collectors.toList()));
+        assertThat(memberRepository.count()).isEqualTo(30);
+        assertThat(memberRepository.findOptionalByUsername(members.get(29).getUsername())).isPresent();
+
+        List<String> expected = members.stream().map(Member::getUsername)
+                .sorted(Comparator.reverseOrder())
+                .skip(8).limit(4)
+                .collect(Collectors.toList());
+        assertThat(page.getContent()).extracting("username").containsExactlyElementsOf(expected);
+        assertThat(page.getTotalElements()).isEqualTo(30);
+        assertThat(page.getTotalPages()).isEqualTo(8);
+    }
+
+    @Test
+    public void mergeNullSortKeys() throws Exception {
+        //given
+        List<Member> members = saveMembers();
+        //shard 마다 username 이 null 인 회원
+        for (int i = 0; i < 3; i++) {
+            Member member = new Member(null, 99);
+            member.setTeam(members.get(i * 5).getTeam());
+            members.add(memberRepository.save(member));
+        }
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            //when
+            List<Member> content = new ArrayList<>();
+            for (int page = 0; page < 4; page++) {
+                content.addAll(memberRepository.findAll(PageRequest.of(page, 10, Sort.by(direction, "username"))).getContent());
+            }
+
+            //then
+            //null 은 방향과 관계없이 앞에 온다
+            Comparator<String> order = direction.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            List<String> expected = members.stream().map(Member::getUsername)
+                    .sorted(Comparator.nullsFirst(order))
+                    .collect(Collectors.toList());
+            assertThat(content).extracting("username").containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void rejectWrongShard() throws Exception {
+        //given
+        List<Member> members = saveMembers();
+        Member other = members.stream()
+                .filter(member -> shardRouter.shardOf(member.getId()) != ShardContext.DEFAULT_SHARD)
+                .findFirst().get();
+
+        //when //then
+        //기본 shard 트랜잭션 안에서 다른 shard 로 갈 수 없다
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> memberRepository.findById(other.getId())))
+                .isInstanceOf(IllegalStateException.class);
+        //tenant key(팀 이름)가 없는 팀
+        assertThatThrownBy(() -> teamRepository.save(new Team(null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void scatterBulkUpdateAndAggregates() throws Exception {
+        //given
+        List<Member> members = saveMembers();
+
+        //when
+        //나이 20 이상 : team2 ~ team5 의 20명
+        int updated = memberRepository.bulkAgePlus(20);
+        //나이 50 이상 : 위에서 51 ~ 55 가 된 team5 의 5명
+        BulkUpdateResult chunked = memberRepository.bulkAgePlus(50, 3);
+        AgeStatsDto ageStats = memberRepository.findAgeStats();
+        List<AgeCountDto> histogram = memberRepository.findAgeHistogram();
+        List<TeamStatsDto> teamStats = memberRepository.findTeamStats();
+
+        //then
+        //모든 shard 의 수정 결과를 더한다
+        assertThat(updated).isEqualTo(20);
+        assertThat(chunked.getUpdatedCount()).isEqualTo(5);
+        assertThat(chunked.getAffectedIds()).containsExactlyInAnyOrderElementsOf(members.stream()
+                .filter(member -> member.getTeam().getName().equals("team5"))
+                .map(Member::getId)
+                .collect(Collectors.toList()));
+
+        List<Integer> ages = memberRepository.findAll().stream()
+                .map(Member::getAge)
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(ages).hasSize(30).startsWith(0, 1, 2, 3, 4, 10).endsWith(45, 52, 53, 54, 55, 56);
+
+        //shard 별 집계를 합친다
+        assertThat(ageStats.getMemberCount()).isEqualTo(30);
+        assertThat(ageStats.getMinAge()).isEqualTo(0);
+        assertThat(ageStats.getMaxAge()).isEqualTo(56);
+        assertThat(ageStats.getAverageAge())
+                .isCloseTo(ages.stream().mapToInt(Integer::intValue).average().getAsDouble(), within(0.0001));
+        assertThat(histogram).extracting("age").containsExactlyElementsOf(ages);
+        assertThat(histogram).extracting("count").containsOnly(1L);
+        assertThat(teamStats).extracting("teamName").containsExactly("team0", "team1", "team2", "team3", "team4", "team5");
+        assertThat(teamStats).extracting("memberCount").containsOnly(5L);
+    }
+
+    @Test
+    public void serviceRunsInMemberShard() throws Exception {
+        //given
+        List<Member> members = saveMembers();
+        Member member = members.stream()
+                .filter(m -> shardRouter.shardOf(m.getId()) != ShardContext.DEFAULT_SHARD)
+                .findFirst().get();
+        Team sameShardTeam = members.stream().map(Member::getTeam)
+                .filter(team -> shardRouter.shardOf(team) == shardRouter.shardOf(member.getId()) && !team.getId().equals(member.getTeam().getId()))
+                .findFirst().orElse(member.getTeam());
+        Team otherShardTeam = members.stream().map(Member::getTeam)
+                .filter(team -> shardRouter.shardOf(team) != shardRouter.shardOf(member.getId()))
+                .findFirst().get();
+
+        //when
+        //모든 shard 의 회원을 트랜잭션 안에서 수정한다
+        for (Member m : members) {
+            memberService.addAge(m.getId(), 100);
+        }
+        memberService.changeTeam(member.getId(), sameShardTeam.getId());
+
+        //then
+        for (Member m : members) {
+            assertThat(memberRepository.findById(m.getId()).get().getAge()).isEqualTo(m.getAge() + 100);
+        }
+        assertThat(memberRepository.findMemberDtoById(member.getId()).get().getTeamName()).isEqualTo(sameShardTeam.getName());
+        //다른 shard 의 팀으로는 옮길 수 없다
+        assertThatThrownBy(() -> memberService.changeTeam(member.getId(), otherShardTeam.getId()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void rejectUnroutedMethod() throws Exception {
+        //when //then
+        //스트림 조회는 shard 하나에서만 열 수 있으므로 shard 를 지정해야 한다
+        assertThatThrownBy(() -> memberRepository.streamUsernames())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ShardContext.callInShard(ShardContext.DEFAULT_SHARD, () -> new TransactionTemplate(transactionManager)
+                .execute(status -> {
+                    try (Stream<String> usernames = memberRepository.streamUsernames()) {
+                        return usernames.count();
+                    }
+                }))).isEqualTo(0L);
+    }
+
+    //팀 6개(팀 이름 해시로 shard 3개에 나뉜다)에 5명씩
+    private List<Member> saveMembers() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Team team = teamRepository.save(new Team("team" + i));
+            for (int j = 0; j < 5; j++) {
+                Member member = new Member("member" + i + "-" + j, i * 10 + j);
+                member.setTeam(team);
+                members.add(memberRepository.save(member));
+            }
+        }
+        return members;
+    }
+}